@@ -0,0 +1,150 @@
+package bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.chocohead.mappings.ClassEntry;
+import com.chocohead.mappings.ClassFilterStatistics;
+import com.chocohead.mappings.FieldEntry;
+import com.chocohead.mappings.Mappings;
+import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.MappingsRemapper;
+import com.chocohead.mappings.MethodEntry;
+
+/**
+ * Looks up every class which remapping a real jar (Guava's classes, from {@link GuavaJar})
+ * would, followed by every class the mappings' own descriptors use, in a plain map against
+ * a {@link MappingsRemapper}, which filters its classes before looking them up. The names
+ * are fresh copies of the characters each time, so they have no hash codes worked out yet
+ * as if they had just been read from the jar.
+ */
+@Fork(3)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ClassFilterLookup extends V2MappingBenchmark {
+	private static final String[] LOOKUPS;
+	private static final Map<String, String> CLASS_MAP = new HashMap<>();
+	private static final MappingsRemapper REMAPPER;
+	private static final ClassFilterStatistics SPLIT;
+	static {
+		Mappings mappings;
+		try {
+			mappings = MappingsProvider.readTinyMappings(MAPPINGS_FILE, true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read mappings?", e);
+		}
+
+		for (ClassEntry entry : mappings.getClassEntries()) {
+			CLASS_MAP.put(entry.get("intermediary"), entry.get("named"));
+		}
+		REMAPPER = new MappingsRemapper(mappings, "intermediary", "named");
+
+		List<String> lookups = new ArrayList<>();
+		Remapper recorder = new Remapper() {
+			@Override
+			public String map(String type) {
+				lookups.add(type);
+				return type;
+			}
+		};
+
+		try (ZipFile jar = new ZipFile(GuavaJar.FILE.toFile())) {
+			for (Enumeration<? extends ZipEntry> it = jar.entries(); it.hasMoreElements();) {
+				ZipEntry entry = it.nextElement();
+				if (!entry.getName().endsWith(".class")) continue;
+
+				try (InputStream in = jar.getInputStream(entry)) {
+					new ClassReader(in).accept(new ClassRemapper(new ClassWriter(0), recorder), 0);
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read Guava?", e);
+		}
+
+		for (MethodEntry entry : mappings.getMethodEntries()) {
+			recorder.mapMethodDesc(entry.get("intermediary").getDesc());
+		}
+		for (FieldEntry entry : mappings.getFieldEntries()) {
+			recorder.mapDesc(entry.get("intermediary").getDesc());
+		}
+
+		LOOKUPS = lookups.toArray(new String[0]);
+		SPLIT = ClassFilterStatistics.count(CLASS_MAP.keySet(), LOOKUPS);
+	}
+
+	/**
+	 * How the filtered lookups were split. JMH sums the counters across every iteration,
+	 * so compare them with {@link #lookups} for the proportion of each.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Split {
+		public long hits, filtered, misses, lookups;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			hits = filtered = misses = lookups = 0;
+		}
+
+		void add() {
+			hits += SPLIT.hits;
+			filtered += SPLIT.filtered;
+			misses += SPLIT.misses;
+			lookups += LOOKUPS.length;
+		}
+	}
+
+	private String[] lookups;
+
+	@Setup(Level.Invocation)
+	public void copyNames() {
+		lookups = new String[LOOKUPS.length];
+		for (int i = 0; i < lookups.length; i++) lookups[i] = new String(LOOKUPS[i].toCharArray());
+	}
+
+	@Benchmark
+	public void measureHashMap(Blackhole hole) {
+		for (String name : lookups) {
+			hole.consume(CLASS_MAP.getOrDefault(name, name));
+		}
+	}
+
+	@Benchmark
+	public void measureFiltered(Split split, Blackhole hole) {
+		for (String name : lookups) {
+			hole.consume(REMAPPER.map(name));
+		}
+
+		split.add();
+	}
+}
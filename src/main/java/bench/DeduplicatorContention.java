@@ -0,0 +1,61 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.SharedStringPool;
+
+/**
+ * Compares how deduplicating names holds up as more threads do so at once. Reading the V1
+ * mappings in parallel either deduplicates every name through one thread safe deduplicator,
+ * or doesn't deduplicate at all, against reading them on a single thread. Several threads
+ * each reading the mappings into the same {@link SharedStringPool} shows the contention of
+ * sharing one pool between whole loads.
+ */
+@Fork(25)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DeduplicatorContention extends V1MappingBenchmark {
+	private SharedStringPool strings;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		strings = new SharedStringPool();
+	}
+
+	@Benchmark
+	public void measureSequential(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readTinyMappings(MAPPINGS_FILE, true));
+	}
+
+	@Benchmark
+	public void measureParallelUndeduplicated(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readTinyMappings(MAPPINGS_FILE, false, ForkJoinPool.commonPool()));
+	}
+
+	@Benchmark
+	public void measureParallel(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readTinyMappings(MAPPINGS_FILE, true, ForkJoinPool.commonPool()));
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void measureSharedContended(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readTinyMappings(MAPPINGS_FILE, strings));
+	}
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+
+/**
+ * A jar of just Guava's classes, for benchmarks which remap a real jar. Guava might
+ * be in its own jar or bundled into the benchmark jar, so its entries are copied out
+ * of wherever it is into a temporary jar, giving the same classes either way.
+ */
+public final class GuavaJar {
+	private static final String PACKAGE = "com/google/common/";
+	public static final Path FILE = writeGuava();
+
+	private GuavaJar() {
+	}
+
+	private static Path writeGuava() {
+		try {
+			Path source = Paths.get(CharStreams.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+			Path file = Files.createTempFile("guava", ".jar");
+			file.toFile().deleteOnExit();
+
+			try (ZipFile in = new ZipFile(source.toFile()); OutputStream stream = Files.newOutputStream(file); ZipOutputStream out = new ZipOutputStream(stream)) {
+				for (Enumeration<? extends ZipEntry> it = in.entries(); it.hasMoreElements();) {
+					ZipEntry entry = it.nextElement();
+					if (entry.isDirectory() || !entry.getName().startsWith(PACKAGE)) continue;
+
+					ZipEntry copy = new ZipEntry(entry.getName());
+					copy.setTime(entry.getTime());
+					out.putNextEntry(copy);
+					try (InputStream contents = in.getInputStream(entry)) {
+						ByteStreams.copy(contents, out);
+					}
+					out.closeEntry();
+				}
+			}
+
+			return file;
+		} catch (IOException | URISyntaxException e) {
+			throw new RuntimeException("Unable to copy Guava?", e);
+		}
+	}
+}
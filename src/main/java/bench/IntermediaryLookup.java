@@ -0,0 +1,99 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.chocohead.mappings.ClassEntry;
+import com.chocohead.mappings.EntryTriple;
+import com.chocohead.mappings.IntermediaryIndex;
+import com.chocohead.mappings.Mappings;
+import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.MethodEntry;
+
+/**
+ * Translates every intermediary class and method name into named, as remapping a jar would.
+ * The names are fresh copies of the characters each time, as the names read from a jar won't
+ * be the same instances as in the mappings, nor have their hash codes already worked out
+ * (which copying a {@link String} directly would keep).
+ */
+@Fork(3)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class IntermediaryLookup extends V2MappingBenchmark {
+	private static final String[] CLASSES, METHODS;
+	private static final Map<String, String> CLASS_MAP = new HashMap<>(), METHOD_MAP = new HashMap<>();
+	private static final IntermediaryIndex INDEX;
+	static {
+		Mappings mappings;
+		try {
+			mappings = MappingsProvider.readTinyMappings(MAPPINGS_FILE, true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read mappings?", e);
+		}
+
+		CLASSES = mappings.getClassEntries().stream().map(entry -> entry.get("intermediary")).toArray(String[]::new);
+		METHODS = mappings.getMethodEntries().stream().map(entry -> entry.get("intermediary").getName()).toArray(String[]::new);
+
+		for (ClassEntry entry : mappings.getClassEntries()) {
+			CLASS_MAP.put(entry.get("intermediary"), entry.get("named"));
+		}
+		for (MethodEntry entry : mappings.getMethodEntries()) {
+			EntryTriple named = entry.get("named");
+			if (named != null) METHOD_MAP.putIfAbsent(entry.get("intermediary").getName(), named.getName());
+		}
+
+		INDEX = IntermediaryIndex.create(mappings, "intermediary", "named");
+	}
+
+	private String[] classes, methods;
+
+	@Setup(Level.Invocation)
+	public void copyNames() {
+		classes = new String[CLASSES.length];
+		for (int i = 0; i < classes.length; i++) classes[i] = new String(CLASSES[i].toCharArray());
+
+		methods = new String[METHODS.length];
+		for (int i = 0; i < methods.length; i++) methods[i] = new String(METHODS[i].toCharArray());
+	}
+
+	@Benchmark
+	public void measureHashMap(Blackhole hole) {
+		for (String name : classes) {
+			hole.consume(CLASS_MAP.getOrDefault(name, name));
+		}
+
+		for (String name : methods) {
+			hole.consume(METHOD_MAP.getOrDefault(name, name));
+		}
+	}
+
+	@Benchmark
+	public void measureIndex(Blackhole hole) {
+		for (String name : classes) {
+			hole.consume(INDEX.mapClass(name));
+		}
+
+		for (String name : methods) {
+			hole.consume(INDEX.mapMethodName(name));
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.chocohead.mappings.ClassHierarchy;
+import com.chocohead.mappings.JarRemapper;
+import com.chocohead.mappings.Mappings;
+import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.MappingsRemapper;
+
+/**
+ * Remaps a whole jar of Guava's classes (from {@link GuavaJar}) from intermediary to named,
+ * comparing doing so on the calling thread against across the common pool. Few of the jar's
+ * names are in the mappings, but every class still needs reading, remapping and writing again
+ * as a real jar would. Also remaps across the common pool looking for members up the jar's
+ * hierarchy, which will (as is usual) miss for most members.
+ */
+@Fork(25)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class JarRemapping extends V2MappingBenchmark {
+	private static final Mappings MAPPINGS;
+	private static final MappingsRemapper REMAPPER;
+	static {
+		try {
+			MAPPINGS = MappingsProvider.readTinyMappings(MAPPINGS_FILE, true);
+			REMAPPER = new MappingsRemapper(MAPPINGS, "intermediary", "named");
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read mappings?", e);
+		}
+	}
+
+	private Path output;
+
+	@Setup(Level.Trial)
+	public void createOutput() throws IOException {
+		output = Files.createTempFile("remapped", ".jar");
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteOutput() throws IOException {
+		Files.deleteIfExists(output);
+	}
+
+	@Benchmark
+	public void measureSequential() throws IOException {
+		JarRemapper.remap(GuavaJar.FILE, output, REMAPPER, null);
+	}
+
+	@Benchmark
+	public void measureParallel() throws IOException {
+		JarRemapper.remap(GuavaJar.FILE, output, REMAPPER, ForkJoinPool.commonPool());
+	}
+
+	@Benchmark
+	public void measureParallelHierarchy() throws IOException {
+		//Both reading the hierarchy and the remapper's memory of it are part of remapping each jar
+		JarRemapper.remap(GuavaJar.FILE, output, new MappingsRemapper(MAPPINGS, "intermediary", "named", ClassHierarchy.read(GuavaJar.FILE)), ForkJoinPool.commonPool());
+	}
+}
@@ -0,0 +1,154 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.commons.Remapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.chocohead.mappings.ClassEntry;
+import com.chocohead.mappings.EntryTriple;
+import com.chocohead.mappings.FieldEntry;
+import com.chocohead.mappings.Mappings;
+import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.MappingsRemapper;
+import com.chocohead.mappings.MethodEntry;
+
+/**
+ * Remaps the owner, name and descriptor of every member from intermediary to named, as
+ * remapping the jar the mappings are for would. Compares a remapper keyed on joined
+ * member names, as is usually written by hand, against a {@link MappingsRemapper}.
+ * Both remember the descriptors they have remapped, so only the member lookups differ.
+ * Each name is copied from its characters before every run, leaving it without a hash
+ * code just as it would be when read out of a class file.
+ */
+@Fork(3)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RemapperLookup extends V2MappingBenchmark {
+	private static final String[][] METHODS, FIELDS;
+	private static final Remapper HAND_ROLLED, MAPPINGS_REMAPPER;
+	static {
+		Mappings mappings;
+		try {
+			mappings = MappingsProvider.readTinyMappings(MAPPINGS_FILE, true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read mappings?", e);
+		}
+
+		METHODS = mappings.getMethodEntries().stream().map(entry -> entry.get("intermediary")).map(RemapperLookup::split).toArray(String[][]::new);
+		FIELDS = mappings.getFieldEntries().stream().map(entry -> entry.get("intermediary")).map(RemapperLookup::split).toArray(String[][]::new);
+
+		Map<String, String> classes = new HashMap<>(), members = new HashMap<>();
+		ConcurrentMap<String, String> descriptors = new ConcurrentHashMap<>();
+		for (ClassEntry entry : mappings.getClassEntries()) {
+			classes.put(entry.get("intermediary"), entry.get("named"));
+		}
+		for (MethodEntry entry : mappings.getMethodEntries()) {
+			EntryTriple from = entry.get("intermediary");
+			members.put(from.getOwner() + '/' + from.getName() + from.getDesc(), entry.get("named").getName());
+		}
+		for (FieldEntry entry : mappings.getFieldEntries()) {
+			EntryTriple from = entry.get("intermediary");
+			members.put(from.getOwner() + '/' + from.getName() + ';' + from.getDesc(), entry.get("named").getName());
+		}
+
+		HAND_ROLLED = new Remapper() {
+			@Override
+			public String map(String internalName) {
+				return classes.getOrDefault(internalName, internalName);
+			}
+
+			@Override
+			public String mapDesc(String descriptor) {
+				return descriptors.computeIfAbsent(descriptor, super::mapDesc);
+			}
+
+			@Override
+			public String mapMethodDesc(String methodDescriptor) {
+				return descriptors.computeIfAbsent(methodDescriptor, super::mapMethodDesc);
+			}
+
+			@Override
+			public String mapMethodName(String owner, String name, String descriptor) {
+				return members.getOrDefault(owner + '/' + name + descriptor, name);
+			}
+
+			@Override
+			public String mapFieldName(String owner, String name, String descriptor) {
+				return members.getOrDefault(owner + '/' + name + ';' + descriptor, name);
+			}
+		};
+		MAPPINGS_REMAPPER = new MappingsRemapper(mappings, "intermediary", "named");
+	}
+
+	private static String[] split(EntryTriple triple) {
+		return new String[] {triple.getOwner(), triple.getName(), triple.getDesc()};
+	}
+
+	private String[][] methods, fields;
+
+	private static String copy(String name) {
+		return new String(name.toCharArray());
+	}
+
+	private static String[][] copy(String[][] members) {
+		String[][] out = new String[members.length][];
+
+		for (int i = 0; i < out.length; i++) {
+			String[] member = members[i];
+			out[i] = new String[] {copy(member[0]), copy(member[1]), copy(member[2])};
+		}
+
+		return out;
+	}
+
+	@Setup(Level.Invocation)
+	public void copyNames() {
+		methods = copy(METHODS);
+		fields = copy(FIELDS);
+	}
+
+	private void remap(Remapper remapper, Blackhole hole) {
+		for (String[] method : methods) {
+			hole.consume(remapper.map(method[0]));
+			hole.consume(remapper.mapMethodName(method[0], method[1], method[2]));
+			hole.consume(remapper.mapMethodDesc(method[2]));
+		}
+
+		for (String[] field : fields) {
+			hole.consume(remapper.map(field[0]));
+			hole.consume(remapper.mapFieldName(field[0], field[1], field[2]));
+			hole.consume(remapper.mapDesc(field[2]));
+		}
+	}
+
+	@Benchmark
+	public void measureHandRolled(Blackhole hole) {
+		remap(HAND_ROLLED, hole);
+	}
+
+	@Benchmark
+	public void measureMappingsRemapper(Blackhole hole) {
+		remap(MAPPINGS_REMAPPER, hole);
+	}
+}
@@ -37,6 +37,11 @@ public class V1Full extends V1MappingBenchmark {
 		hole.consume(MappingsProvider.readTinyMappings(new ByteArrayInputStream(RAW_MAPPINGS), true));
 	}
 
+	@Benchmark
+	public void measureChocoMapped(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readTinyMappings(MAPPINGS_FILE, true));
+	}
+
 	@Benchmark
 	public void measureChocoFakeFull(Blackhole hole) throws IOException {
 		hole.consume(MappingsProvider.readFullTinyMappings(new ByteArrayInputStream(RAW_MAPPINGS), false));
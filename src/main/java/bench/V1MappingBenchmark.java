@@ -4,12 +4,15 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import com.google.common.io.CharStreams;
 
 public abstract class V1MappingBenchmark {
 	protected static final String MAPPINGS = readMappings();
 	protected static final byte[] RAW_MAPPINGS = MAPPINGS.getBytes(StandardCharsets.UTF_8); 
+	protected static final Path MAPPINGS_FILE = writeMappings();
 
 	private static String readMappings() {
 		try (Reader in = new InputStreamReader(V1MappingBenchmark.class.getResourceAsStream("/mappingsV1.tiny"), StandardCharsets.UTF_8)) {
@@ -18,4 +21,14 @@ public abstract class V1MappingBenchmark {
 			throw new RuntimeException("Unable to read mappings?", e);
 		}
 	}
+
+	private static Path writeMappings() {
+		try {
+			Path file = Files.createTempFile("mappingsV1", ".tiny");
+			file.toFile().deleteOnExit();
+			return Files.write(file, RAW_MAPPINGS);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to write mappings?", e);
+		}
+	}
 }
\ No newline at end of file
@@ -4,7 +4,11 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -15,7 +19,9 @@ import org.openjdk.jmh.infra.Blackhole;
 
 import net.fabricmc.mappings.model.V2MappingsProvider;
 
+import com.chocohead.mappings.MappingsCache;
 import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.MappingsSnapshot;
 import com.chocohead.mappings.TinyV2VisitorBetterBridge;
 import com.chocohead.mappings.TinyV2VisitorFabricBridge;
 
@@ -23,6 +29,36 @@ import com.chocohead.mappings.TinyV2VisitorFabricBridge;
 @BenchmarkMode(Mode.SingleShotTime)
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
 public class V2Full extends V2MappingBenchmark {
+	private static final Path SNAPSHOT_FILE = writeSnapshot();
+	private static final MappingsCache CACHE = createCache();
+
+	private static Path writeSnapshot() {
+		try {
+			Path file = Files.createTempFile("mappingsV2", ".snapshot");
+			file.toFile().deleteOnExit();
+			MappingsSnapshot.write(MappingsProvider.readFullTinyMappings(MAPPINGS_FILE, false), file);
+			return file;
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to write snapshot?", e);
+		}
+	}
+
+	private static MappingsCache createCache() {
+		try {
+			Path directory = Files.createTempDirectory("mappingsCache");
+			directory.toFile().deleteOnExit();
+
+			MappingsCache out = new MappingsCache(directory, Long.MAX_VALUE);
+			out.readFullTinyMappings(MAPPINGS_FILE); //Make sure the mappings are cached before measuring
+			try (Stream<Path> files = Files.list(directory)) {
+				files.forEach(file -> file.toFile().deleteOnExit());
+			}
+			return out;
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to create cache?", e);
+		}
+	}
+
 	@Benchmark
 	public void measureFabric(Blackhole hole) throws IOException {
 		hole.consume(V2MappingsProvider.readTinyMappings(new BufferedReader(new StringReader(MAPPINGS))));
@@ -43,6 +79,31 @@ public class V2Full extends V2MappingBenchmark {
 		hole.consume(MappingsProvider.readFullTinyMappings(new ByteArrayInputStream(RAW_MAPPINGS), true));
 	}
 
+	@Benchmark
+	public void measureChocoMapped(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readFullTinyMappings(MAPPINGS_FILE, true));
+	}
+
+	@Benchmark
+	public void measureChocoParallel(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readFullTinyMappings(MAPPINGS_FILE, true, ForkJoinPool.commonPool()));
+	}
+
+	@Benchmark
+	public void measureChocoSnapshot(Blackhole hole) throws IOException {
+		hole.consume(MappingsSnapshot.read(SNAPSHOT_FILE));
+	}
+
+	@Benchmark
+	public void measureChocoCached(Blackhole hole) throws IOException {
+		hole.consume(CACHE.readFullTinyMappings(MAPPINGS_FILE));
+	}
+
+	@Benchmark
+	public void measureChocoLazy(Blackhole hole) throws IOException {
+		hole.consume(MappingsProvider.readLazyTinyMappings(MAPPINGS_FILE, true));
+	}
+
 	@Benchmark
 	public void measureChocoShortBig(Blackhole hole) throws IOException {
 		hole.consume(MappingsProvider.readTinyMappings(new ByteArrayInputStream(RAW_MAPPINGS), false));
@@ -0,0 +1,170 @@
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.chocohead.mappings.Mappings;
+import com.chocohead.mappings.MappingsProvider;
+import com.chocohead.mappings.SharedStringPool;
+import com.chocohead.mappings.TinyV2VisitorBetterBridge;
+
+/**
+ * Loads the mappings in different ways to compare how much of the heap each keeps hold of.
+ * Every load is surrounded by full garbage collections, so the time taken says little; the
+ * {@link RetainedHeap} counters are what matter. As how much is retained barely changes from
+ * one load to the next, only a few short iterations are run in a few forks to keep the run
+ * down to a couple of minutes.
+ */
+@Fork(3)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class V2Memory extends V2MappingBenchmark {
+	/** The same mappings with every name in the last namespace left the same as in the one before, as if they were yet to be mapped */
+	private static final byte[] UNMAPPED = unmap(MAPPINGS);
+
+	private static byte[] unmap(String mappings) {
+		StringBuilder out = new StringBuilder(mappings.length());
+
+		for (String line : mappings.split("\n")) {
+			String type = line.trim().split("\t", 2)[0];
+
+			//Class comments are indented, so can't be confused with class lines
+			if (type.equals("c") ? !Character.isWhitespace(line.charAt(0)) : type.length() == 1 && "fmpv".indexOf(type.charAt(0)) >= 0) {
+				int last = line.lastIndexOf('\t');
+				out.append(line, 0, last + 1).append(line, line.lastIndexOf('\t', last - 1) + 1, last);
+			} else {
+				out.append(line);
+			}
+
+			out.append('\n');
+		}
+
+		return out.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	interface MappingsLoader {
+		Mappings load() throws IOException;
+	}
+
+	/**
+	 * Reports how much of the heap the loaded mappings keep hold of, alongside the time taken to load them.
+	 * JMH sums the counters across every iteration, so divide {@link #retainedKB} by {@link #loads} for the average.
+	 * Loads into a {@link SharedStringPool} also count how many names were added to it in {@link #pooledNames},
+	 * against how many would have been added to an empty pool in {@link #unsharedNames}.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class RetainedHeap {
+		private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+		public long retainedKB, loads, pooledNames, unsharedNames;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			retainedKB = loads = pooledNames = unsharedNames = 0;
+		}
+
+		private static long usedHeap() {
+			for (int i = 0; i < 4; i++) System.gc();
+			return MEMORY.getHeapMemoryUsage().getUsed();
+		}
+
+		void measure(Blackhole hole, MappingsLoader loader) throws IOException {
+			long before = usedHeap();
+			Mappings mappings = loader.load();
+			retainedKB += (usedHeap() - before) / 1024;
+			loads++;
+			hole.consume(mappings);
+		}
+
+		void measure(Blackhole hole, LoadedVersion loaded, MappingsLoader loader) throws IOException {
+			long before = loaded.strings.added();
+			measure(hole, loader);
+			pooledNames += loaded.strings.added() - before;
+			unsharedNames += loaded.unsharedNames;
+		}
+	}
+
+	/**
+	 * An earlier version of the mappings, without any names in the last namespace yet, which is kept loaded
+	 * throughout so its names stay in the shared pool. Loading the mappings into the pool should then only
+	 * add the names which differ between the two.
+	 */
+	@State(Scope.Thread)
+	public static class LoadedVersion {
+		public SharedStringPool strings;
+		public Mappings mappings;
+		/** How many names the mappings add to a pool by themselves */
+		long unsharedNames;
+
+		@Setup(Level.Trial)
+		public void load() throws IOException {
+			SharedStringPool alone = new SharedStringPool();
+			MappingsProvider.readTinyMappings(MAPPINGS_FILE, alone);
+			unsharedNames = alone.added();
+
+			Path unmapped = Files.createTempFile("mappingsV2-unmapped", ".tiny");
+			unmapped.toFile().deleteOnExit();
+			Files.write(unmapped, UNMAPPED);
+
+			strings = new SharedStringPool();
+			mappings = MappingsProvider.readTinyMappings(unmapped, strings);
+		}
+	}
+
+	@Benchmark
+	public void measureChoco(RetainedHeap heap, Blackhole hole) throws IOException {
+		heap.measure(hole, () -> MappingsProvider.readTinyMappings(MAPPINGS_FILE, true));
+	}
+
+	@Benchmark
+	public void measureChocoColumnar(RetainedHeap heap, Blackhole hole) throws IOException {
+		heap.measure(hole, () -> MappingsProvider.readColumnarTinyMappings(MAPPINGS_FILE, true));
+	}
+
+	@Benchmark
+	public void measureChocoOffHeap(RetainedHeap heap, Blackhole hole) throws IOException {
+		heap.measure(hole, () -> MappingsProvider.readColumnarTinyMappings(MAPPINGS_FILE, true, true));
+	}
+
+	@Benchmark
+	public void measureChocoShared(RetainedHeap heap, LoadedVersion loaded, Blackhole hole) throws IOException {
+		heap.measure(hole, loaded, () -> MappingsProvider.readTinyMappings(MAPPINGS_FILE, loaded.strings));
+	}
+
+	@Benchmark
+	public void measureChocoUnmapped(RetainedHeap heap, Blackhole hole) throws IOException {
+		heap.measure(hole, () -> MappingsProvider.readTinyMappings(new ByteArrayInputStream(UNMAPPED), true));
+	}
+
+	@Benchmark
+	public void measureBetterBridge(RetainedHeap heap, Blackhole hole) throws IOException {
+		heap.measure(hole, () -> TinyV2VisitorBetterBridge.fullyRead(new ByteArrayInputStream(RAW_MAPPINGS), true));
+	}
+
+	@Benchmark
+	public void measureBetterBridgeUnmapped(RetainedHeap heap, Blackhole hole) throws IOException {
+		heap.measure(hole, () -> TinyV2VisitorBetterBridge.fullyRead(new ByteArrayInputStream(UNMAPPED), true));
+	}
+}
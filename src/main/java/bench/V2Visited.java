@@ -1,6 +1,7 @@
 package bench;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.concurrent.TimeUnit;
@@ -17,6 +18,7 @@ import net.fabricmc.mapping.reader.v2.TinyVisitor;
 
 import com.chocohead.mappings.TinyV2Visitor;
 import com.chocohead.mappings.visitor.ClassVisitor;
+import com.chocohead.mappings.visitor.Columns;
 import com.chocohead.mappings.visitor.FieldVisitor;
 import com.chocohead.mappings.visitor.LocalVisitor;
 import com.chocohead.mappings.visitor.MappingsVisitor;
@@ -109,6 +111,65 @@ public class V2Visited extends V2MappingBenchmark {
 		});
 	}
 
+	@Benchmark
+	public void measureChocoMemberColumns() throws IOException {
+		TinyV2Visitor.read(new ByteArrayInputStream(RAW_MAPPINGS), new MappingsVisitor() {
+
+			@Override
+			public void visitVersion(int major, int minor) {
+				assert major == 2;
+			}
+
+			@Override
+			public void visitNamespaces(String... namespaces) {
+			}
+
+			@Override
+			public void visitProperty(String name) {
+			}
+
+			@Override
+			public void visitProperty(String name, String value) {
+			}
+
+			@Override
+			public ClassVisitor visitClass(long offset, String[] names) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public ClassVisitor visitClass(long offset, Columns names) {
+				return new ClassVisitor() {
+
+					@Override
+					public MethodVisitor visitMethod(long offset, String[] names, String descriptor) {
+						throw new UnsupportedOperationException();
+					}
+
+					@Override
+					public MethodVisitor visitMethod(long offset, Columns columns) {
+						return null;
+					}
+
+					@Override
+					public FieldVisitor visitField(long offset, String[] names, String descriptor) {
+						throw new UnsupportedOperationException();
+					}
+
+					@Override
+					public FieldVisitor visitField(long offset, Columns columns) {
+						return null;
+					}
+
+					@Override
+					public void visitComment(String line) {
+					}
+					
+				};
+			}
+		});
+	}
+
 	@Benchmark
 	public void measureChocoMemberCached() throws IOException {
 		TinyV2Visitor.read(new StringReader(MAPPINGS), new MappingsVisitor() {
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Opens mappings which are compressed with gzip or held inside a zip (or jar),
+ * reading them straight from a memory mapping of the file.
+ *
+ * <p>
+ * Entries which are {@link java.util.zip.ZipEntry#STORED STORED} are read directly
+ * from the mapping without any copying. Compressed input is inflated in large
+ * blocks straight into the {@link ByteOffsetReader}'s buffer.
+ *
+ * @author Chocohead
+ */
+final class ArchiveInputs {
+	private static final int BLOCK_SIZE = 1 << 16;
+	private static final int GZIP_MAGIC = 0x8B1F;
+	private static final int LOCAL_HEADER = 0x04034B50, CENTRAL_HEADER = 0x02014B50, END_HEADER = 0x06054B50;
+	private static final int STORED = 0, DEFLATED = 8;
+
+	private ArchiveInputs() {
+	}
+
+	private static final class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		private final boolean padded;
+		private boolean padding;
+
+		/**
+		 * @param padded Whether an extra byte should be given after the buffer's
+		 *        contents, which {@link Inflater}s expect when not wrapped
+		 */
+		BufferInputStream(ByteBuffer buffer, boolean padded) {
+			this.buffer = buffer;
+			this.padded = padded;
+		}
+
+		@Override
+		public int read() {
+			if (buffer.hasRemaining()) return buffer.get() & 0xFF;
+			if (padded && !padding) {
+				padding = true;
+				return 0;
+			}
+			return -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) return 0;
+
+			if (!buffer.hasRemaining()) {
+				int next = read();
+				if (next < 0) return -1;
+
+				b[off] = (byte) next;
+				return 1;
+			}
+
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+	/**
+	 * Maps the remaining contents of the given channel from its current position.
+	 *
+	 * @throws IOException If the channel is too large to be mapped or an I/O
+	 *                     error occurs whilst mapping it
+	 */
+	static ByteBuffer map(FileChannel channel) throws IOException {
+		return map(channel, channel.position());
+	}
+
+	private static ByteBuffer map(FileChannel channel, long position) throws IOException {
+		long size = channel.size() - position;
+		if (size > Integer.MAX_VALUE) throw new IOException("Input too large to map: " + size + " bytes");
+
+		return channel.map(MapMode.READ_ONLY, position, Math.max(size, 0));
+	}
+
+	/**
+	 * Checks whether the given buffer starts with the gzip magic number.
+	 *
+	 * @param buffer The buffer to check, from its current position
+	 *
+	 * @return Whether the buffer's contents look to be gzipped
+	 */
+	static boolean isGzipped(ByteBuffer buffer) {
+		int start = buffer.position();
+		return buffer.remaining() >= 2 && (buffer.get(start) & 0xFF | (buffer.get(start + 1) & 0xFF) << 8) == GZIP_MAGIC;
+	}
+
+	/**
+	 * Creates a reader for the remaining contents of the given channel from its
+	 * current position, transparently inflating it if it is gzipped.
+	 *
+	 * @param channel The {@link FileChannel} to be read
+	 *
+	 * @return A reader over the (decompressed) contents of the channel
+	 *
+	 * @throws IOException If the channel is too large to be mapped or an I/O
+	 *                     error occurs whilst mapping it
+	 */
+	static ByteOffsetReader open(FileChannel channel) throws IOException {
+		return open(map(channel));
+	}
+
+	/**
+	 * Creates a reader for the remaining contents of the given buffer, transparently
+	 * inflating it if it is gzipped.
+	 *
+	 * @param buffer The buffer to be read, which is not modified
+	 *
+	 * @return A reader over the (decompressed) contents of the buffer
+	 *
+	 * @throws IOException If the gzip header is invalid
+	 */
+	static ByteOffsetReader open(ByteBuffer buffer) throws IOException {
+		buffer = buffer.duplicate();
+
+		if (isGzipped(buffer)) {
+			return new ByteOffsetReader(new GZIPInputStream(new BufferInputStream(buffer, false), BLOCK_SIZE), BLOCK_SIZE);
+		} else {
+			return new ByteOffsetReader(buffer);
+		}
+	}
+
+	/**
+	 * Creates a reader for the given entry in the zip (or jar) the channel is for.
+	 *
+	 * @param channel The {@link FileChannel} of the zip to be read
+	 * @param name The full name of the entry to read
+	 *
+	 * @return A reader over the (decompressed) contents of the entry
+	 *
+	 * @throws FileNotFoundException If the zip has no entry with the given name
+	 * @throws ZipException If the zip is malformed or uses unsupported features
+	 * @throws IOException If an I/O error occurs whilst mapping the channel
+	 */
+	static ByteOffsetReader openEntry(FileChannel channel, String name) throws IOException {
+		ByteBuffer zip = map(channel, 0).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] wantedName = name.getBytes(StandardCharsets.UTF_8);
+
+		int end = findEnd(zip);
+		int entries = zip.getShort(end + 10) & 0xFFFF;
+		int position = zip.getInt(end + 16);
+		if (entries == 0xFFFF || position == -1) throw new ZipException("ZIP64 archives are not supported");
+
+		for (int i = 0; i < entries; i++) {
+			if (position < 0 || position + 46 > zip.limit() || zip.getInt(position) != CENTRAL_HEADER) {
+				throw new ZipException("Invalid central directory header at " + position);
+			}
+
+			int nameLength = zip.getShort(position + 28) & 0xFFFF;
+			int extraLength = zip.getShort(position + 30) & 0xFFFF;
+			int commentLength = zip.getShort(position + 32) & 0xFFFF;
+
+			if (nameMatches(zip, position + 46, nameLength, wantedName)) {
+				if ((zip.getShort(position + 8) & 1) != 0) throw new ZipException("Encrypted entries are not supported: " + name);
+				int method = zip.getShort(position + 10) & 0xFFFF;
+				int compressedSize = zip.getInt(position + 20);
+				int localHeader = zip.getInt(position + 42);
+				if (compressedSize == -1 || localHeader == -1) throw new ZipException("ZIP64 entries are not supported: " + name);
+
+				if (localHeader < 0 || localHeader + 30 > zip.limit() || zip.getInt(localHeader) != LOCAL_HEADER) {
+					throw new ZipException("Invalid local header for " + name);
+				}
+				int start = localHeader + 30 + (zip.getShort(localHeader + 26) & 0xFFFF) + (zip.getShort(localHeader + 28) & 0xFFFF);
+				if (compressedSize < 0 || start + compressedSize > zip.limit()) throw new ZipException("Truncated entry: " + name);
+
+				ByteBuffer data = TinyV2Visitor.slice(zip, start, start + compressedSize);
+				switch (method) {
+				case STORED:
+					return new ByteOffsetReader(data);
+
+				case DEFLATED: {
+					Inflater inflater = new Inflater(true);
+
+					return new ByteOffsetReader(new InflaterInputStream(new BufferInputStream(data, true), inflater, BLOCK_SIZE) {
+						@Override
+						public void close() throws IOException {
+							super.close();
+							inflater.end(); //Not done by default as the inflater came from outside
+						}
+					}, BLOCK_SIZE);
+				}
+
+				default:
+					throw new ZipException("Unsupported compression method " + method + " for " + name);
+				}
+			}
+
+			position += 46 + nameLength + extraLength + commentLength;
+		}
+
+		throw new FileNotFoundException("No entry named " + name);
+	}
+
+	private static int findEnd(ByteBuffer zip) throws ZipException {
+		//The end record is at least 22 bytes, followed by a comment of up to 65535 bytes
+		for (int i = zip.limit() - 22, stop = Math.max(0, i - 0xFFFF); i >= stop; i--) {
+			if (zip.getInt(i) == END_HEADER) return i;
+		}
+
+		throw new ZipException("Not a zip file, no end of central directory found");
+	}
+
+	private static boolean nameMatches(ByteBuffer zip, int start, int length, byte[] name) {
+		if (length != name.length) return false;
+
+		for (int i = 0; i < length; i++) {
+			if (zip.get(start + i) != name[i]) return false;
+		}
+
+		return true;
+	}
+}
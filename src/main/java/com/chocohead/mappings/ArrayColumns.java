@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.Arrays;
+
+import com.chocohead.mappings.visitor.Columns;
+
+/**
+ * {@link Columns} over a line which has already been split into {@link String}s.
+ *
+ * @author Chocohead
+ */
+final class ArrayColumns implements Columns {
+	private final String[] columns;
+
+	ArrayColumns(String[] columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public int size() {
+		return columns.length;
+	}
+
+	@Override
+	public CharSequence get(int column) {
+		return columns[column];
+	}
+
+	@Override
+	public String getString(int column) {
+		return columns[column];
+	}
+
+	@Override
+	public int getInt(int column) {
+		return Integer.parseInt(columns[column]);
+	}
+
+	@Override
+	public String[] toArray(int from) {
+		return from == 0 ? columns.clone() : Arrays.copyOfRange(columns, from, columns.length);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(columns);
+	}
+}
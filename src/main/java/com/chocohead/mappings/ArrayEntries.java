@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.function.ToIntFunction;
+
+import com.chocohead.mappings.model.LocalVariable;
+import com.chocohead.mappings.model.LocalVariableEntry;
+import com.chocohead.mappings.model.MethodParameter;
+import com.chocohead.mappings.model.MethodParameterEntry;
+
+/**
+ * Entries backed by an array of the names in each namespace, in the order of the
+ * mappings' namespaces. Looking up by namespace id is a single array access,
+ * whilst looking up by name goes through the given namespace resolver.
+ *
+ * @author Chocohead
+ */
+final class ArrayEntries {
+	/**
+	 * Makes the triple for the given namespace, reusing the triple of an earlier namespace
+	 * if it has the same owner, name and descriptor. Members are often left with the
+	 * same names in several namespaces, which then only need the one triple.
+	 *
+	 * @param triples The triples of the member, filled in up to the given namespace
+	 * @param namespace The index of the namespace the triple is for
+	 */
+	static EntryTriple triple(EntryTriple[] triples, int namespace, String owner, String name, String desc) {
+		for (int i = 0; i < namespace; i++) {
+			EntryTriple triple = triples[i];
+			if (MappingsIndex.matches(triple, owner, name, desc)) return triple;
+		}
+
+		return new EntryTriple(owner, name, desc);
+	}
+
+	static final class Class implements ClassEntry {
+		private final String[] names;
+		private final ToIntFunction<String> namespaceIndex;
+
+		Class(String[] names, ToIntFunction<String> namespaceIndex) {
+			this.names = names;
+			this.namespaceIndex = namespaceIndex;
+		}
+
+		@Override
+		public String get(String namespace) {
+			return names[namespaceIndex.applyAsInt(namespace)];
+		}
+
+		@Override
+		public String get(int namespace) {
+			return names[namespace];
+		}
+	}
+
+	static final class Member implements FieldEntry, MethodEntry {
+		private final EntryTriple[] names;
+		private final ToIntFunction<String> namespaceIndex;
+
+		Member(EntryTriple[] names, ToIntFunction<String> namespaceIndex) {
+			this.names = names;
+			this.namespaceIndex = namespaceIndex;
+		}
+
+		@Override
+		public EntryTriple get(String namespace) {
+			return names[namespaceIndex.applyAsInt(namespace)];
+		}
+
+		@Override
+		public EntryTriple get(int namespace) {
+			return names[namespace];
+		}
+	}
+
+	static final class Parameter implements MethodParameterEntry {
+		private final MethodParameter[] names;
+		private final ToIntFunction<String> namespaceIndex;
+
+		Parameter(MethodParameter[] names, ToIntFunction<String> namespaceIndex) {
+			this.names = names;
+			this.namespaceIndex = namespaceIndex;
+		}
+
+		@Override
+		public MethodParameter get(String namespace) {
+			return names[namespaceIndex.applyAsInt(namespace)];
+		}
+
+		@Override
+		public MethodParameter get(int namespace) {
+			return names[namespace];
+		}
+	}
+
+	static final class Local implements LocalVariableEntry {
+		private final LocalVariable[] names;
+		private final ToIntFunction<String> namespaceIndex;
+
+		Local(LocalVariable[] names, ToIntFunction<String> namespaceIndex) {
+			this.names = names;
+			this.namespaceIndex = namespaceIndex;
+		}
+
+		@Override
+		public LocalVariable get(String namespace) {
+			return names[namespaceIndex.applyAsInt(namespace)];
+		}
+
+		@Override
+		public LocalVariable get(int namespace) {
+			return names[namespace];
+		}
+	}
+
+	private ArrayEntries() {
+	}
+}
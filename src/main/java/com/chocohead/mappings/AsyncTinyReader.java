@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reads a file with an {@link AsynchronousFileChannel} before parsing it on a
+ * given {@link Executor}, without blocking the thread which started the read.
+ *
+ * <p>
+ * Cancelling the returned future closes the channel if the file is still being
+ * read, or stops the parsing at the next line if it has already started.
+ *
+ * @author Chocohead
+ */
+final class AsyncTinyReader {
+	interface Parser<T> {
+		T parse(TinyInput input) throws IOException;
+	}
+
+	private static final class CancellableInput implements TinyInput {
+		private final TinyInput input;
+		private final CompletableFuture<?> future;
+
+		CancellableInput(TinyInput input, CompletableFuture<?> future) {
+			this.input = input;
+			this.future = future;
+		}
+
+		private void checkCancelled() throws IOException {
+			if (future.isDone()) throw new InterruptedIOException("Reading cancelled");
+		}
+
+		@Override
+		public String readLine() throws IOException {
+			checkCancelled();
+			return input.readLine();
+		}
+
+		@Override
+		public TinyLine nextLine() throws IOException {
+			checkCancelled();
+			return input.nextLine();
+		}
+
+		@Override
+		public long lineStart() {
+			return input.lineStart();
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+	}
+
+	private AsyncTinyReader() {
+	}
+
+	static <T> CompletableFuture<T> read(Path file, Executor executor, Parser<T> parser) {
+		CompletableFuture<T> out = new CompletableFuture<>();
+
+		AsynchronousFileChannel channel;
+		try {
+			channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ);
+		} catch (IOException | RuntimeException e) {
+			out.completeExceptionally(e);
+			return out;
+		}
+		out.whenComplete((result, t) -> {
+			try {//Either finished or cancelled, any reads still going on can stop
+				channel.close();
+			} catch (IOException e) {
+				//Nothing else is done with the channel so it's not a problem if closing fails
+			}
+		});
+
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("File too large to read: " + size + " bytes");
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			channel.read(buffer, 0, buffer, new CompletionHandler<Integer, ByteBuffer>() {
+				@Override
+				public void completed(Integer read, ByteBuffer buffer) {
+					if (out.isDone()) return; //Cancelled whilst reading
+
+					if (read >= 0 && buffer.hasRemaining()) {
+						channel.read(buffer, buffer.position(), buffer, this);
+					} else {
+						buffer.flip();
+
+						try {
+							executor.execute(() -> parse(buffer, parser, out));
+						} catch (RejectedExecutionException e) {
+							out.completeExceptionally(e);
+						}
+					}
+				}
+
+				@Override
+				public void failed(Throwable t, ByteBuffer buffer) {
+					out.completeExceptionally(t);
+				}
+			});
+		} catch (IOException | RuntimeException e) {
+			out.completeExceptionally(e);
+		}
+
+		return out;
+	}
+
+	private static <T> void parse(ByteBuffer buffer, Parser<T> parser, CompletableFuture<T> out) {
+		if (out.isDone()) return; //Cancelled before getting started
+
+		try {
+			out.complete(parser.parse(new CancellableInput(new ByteOffsetReader(buffer), out)));
+		} catch (Throwable t) {
+			out.completeExceptionally(t);
+		}
+	}
+}
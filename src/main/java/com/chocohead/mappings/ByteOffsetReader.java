@@ -0,0 +1,305 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte oriented counterpart to {@link OffsetReader} which finds lines straight
+ * from raw UTF-8 input, only decoding the parts of a line into {@link String}s
+ * which are asked for. Given almost all of a Tiny file is ASCII, the full UTF-8
+ * decoder is only used for the rare sections which are not.
+ *
+ * <p>
+ * Unlike {@link OffsetReader} the offsets given by {@link #lineStart()} and
+ * {@link #lineEnd()} are counted in bytes rather than characters.
+ *
+ * @author Chocohead
+ */
+final class ByteOffsetReader implements TinyInput {
+	private final class Line extends TinyLine {
+		Line() {
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) throw new StringIndexOutOfBoundsException(index);
+			return (char) (buffer.get(start + index) & 0xFF);
+		}
+
+		@Override
+		public int indexOf(char c, int from) {
+			for (int i = start + Math.max(from, 0); i < end; i++) {
+				if (buffer.get(i) == c) return i - start;
+			}
+
+			return -1;
+		}
+
+		@Override
+		public boolean isAscii(int start, int end) {
+			for (int i = ByteOffsetReader.this.start + start, limit = ByteOffsetReader.this.start + end; i < limit; i++) {
+				if (buffer.get(i) < 0) return false;
+			}
+
+			return true;
+		}
+
+		@Override
+		public String slice(int start, int end) {
+			if (start < 0 || end > this.length() || start > end) {
+				throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + length());
+			}
+
+			return decode(ByteOffsetReader.this.start + start, ByteOffsetReader.this.start + end);
+		}
+
+		@Override
+		public String toString() {
+			return decode(start, end);
+		}
+	}
+
+	private final InputStream in;
+	private ByteBuffer buffer;
+	private final ByteBuffer view;
+	private byte[] scratch;
+	private final Line line = new Line();
+	private long bufferStart;
+	private int start, end = -1, position, limit;
+	private boolean skipLF, finished;
+
+	/**
+	 * Creates a byte reader over the given stream that uses a default-sized buffer.
+	 *
+	 * @param in An {@link InputStream} of UTF-8 encoded text to be read
+	 */
+	public ByteOffsetReader(InputStream in) {
+		this(in, 8192);
+	}
+
+	/**
+	 * Creates a byte reader over the given stream that uses a buffer of the given
+	 * starting size. The buffer will grow if a single line is longer than it.
+	 *
+	 * @param in An {@link InputStream} of UTF-8 encoded text to be read
+	 * @param bufferSize The desired starting size of the input buffer
+	 */
+	public ByteOffsetReader(InputStream in, int bufferSize) {
+		if (bufferSize <= 0) throw new IllegalArgumentException("Buffer size <= 0");
+
+		this.in = in;
+		buffer = ByteBuffer.wrap(new byte[bufferSize]);
+		view = null;
+	}
+
+	/**
+	 * Creates a byte reader which reads directly from the remaining contents of
+	 * the given buffer, without copying it.
+	 *
+	 * @param input A {@link ByteBuffer} of UTF-8 encoded text to be read
+	 */
+	public ByteOffsetReader(ByteBuffer input) {
+		in = null;
+		buffer = input.slice();
+		view = buffer.hasArray() ? null : buffer.duplicate();
+		limit = buffer.limit();
+		finished = true;
+	}
+
+	/**
+	 * Creates a byte reader which reads directly from a read only memory mapping
+	 * of the given channel, from its current position to the end. The channel
+	 * can be closed once this returns without affecting the reader.
+	 *
+	 * @param channel The {@link FileChannel} to be read
+	 *
+	 * @return A reader over the remaining contents of the channel
+	 *
+	 * @throws IOException If the channel is too large to be mapped or an I/O
+	 *                     error occurs whilst mapping it
+	 */
+	static ByteOffsetReader map(FileChannel channel) throws IOException {
+		long position = channel.position();
+		long size = channel.size() - position;
+		if (size > Integer.MAX_VALUE) throw new IOException("Input too large to map: " + size + " bytes");
+
+		return new ByteOffsetReader(channel.map(MapMode.READ_ONLY, position, Math.max(size, 0)));
+	}
+
+	/**
+	 * Gives the rest of the input from the start of the last line read, without
+	 * copying it. Only possible when reading from a {@link ByteBuffer}, as a stream
+	 * might not have been entirely read yet.
+	 *
+	 * @return The remaining input starting with the last line read, or null if
+	 *         reading from a stream
+	 */
+	ByteBuffer rest() {
+		if (in != null) return null;
+
+		ByteBuffer out = buffer.duplicate();
+		out.limit(limit).position(start);
+		return out.slice();
+	}
+
+	private boolean fill() throws IOException {
+		if (finished) return false;
+
+		byte[] array = buffer.array();
+		int kept = limit - start;
+		if (start > 0) {
+			System.arraycopy(array, start, array, 0, kept);
+			bufferStart += start;
+			position -= start;
+			limit = kept;
+			start = 0;
+		} else if (kept == array.length) {
+			buffer = ByteBuffer.wrap(array = Arrays.copyOf(array, array.length * 2));
+		}
+
+		int read;
+		do {
+			read = in.read(array, limit, array.length - limit);
+		} while (read == 0);
+
+		if (read < 0) {
+			finished = true;
+			return false;
+		} else {
+			limit += read;
+			return true;
+		}
+	}
+
+	/**
+	 * Reads a line of text. A line is considered to be terminated by any one of a
+	 * line feed ('\n'), a carriage return ('\r'), or a carriage return followed
+	 * immediately by a linefeed.
+	 *
+	 * @return A String containing the contents of the line, not including any
+	 *         line-termination characters, or null if the end of the input has
+	 *         been reached
+	 *
+	 * @exception IOException If an I/O error occurs whilst reading
+	 *
+	 * @see #nextLine()
+	 */
+	@Override
+	public String readLine() throws IOException {
+		TinyLine line = nextLine();
+		return line != null ? line.toString() : null;
+	}
+
+	/**
+	 * Reads a line of text without decoding it. A line is terminated in the same
+	 * way as for {@link #readLine()}.
+	 *
+	 * @return The contents of the line, not including any line-termination
+	 *         characters, or null if the end of the input has been reached
+	 *
+	 * @exception IOException If an I/O error occurs whilst reading
+	 */
+	@Override
+	public TinyLine nextLine() throws IOException {
+		start = position;
+
+		if (skipLF) {
+			skipLF = false;
+
+			if ((position < limit || fill()) && buffer.get(position) == '\n') {
+				start = ++position;
+			}
+		}
+
+		do {
+			for (int limit = this.limit; position < limit; position++) {
+				byte b = buffer.get(position);
+
+				if (b == '\n' || b == '\r') {
+					end = position++;
+					skipLF = b == '\r';
+					return line;
+				}
+			}
+		} while (fill());
+
+		//Nothing left in the input, any remainder is the last line
+		end = position;
+		return end > start ? line : null;
+	}
+
+	private String decode(int from, int to) {
+		int length = to - from;
+		if (length == 0) return "";
+
+		byte[] bytes;
+		int offset;
+		if (view == null) {
+			bytes = buffer.array();
+			offset = buffer.arrayOffset() + from;
+		} else {
+			if (scratch == null || scratch.length < length) scratch = new byte[Math.max(length, 128)];
+			view.position(from);
+			view.get(bytes = scratch, offset = 0, length);
+		}
+
+		for (int i = offset, end = offset + length; i < end; i++) {
+			if (bytes[i] < 0) return new String(bytes, offset, length, StandardCharsets.UTF_8);
+		}
+
+		return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * The number of bytes the last line returned by {@link #nextLine()} is past
+	 * from the start of the input. Returns 0 if no line has been read yet.
+	 *
+	 * @return The number of bytes the last line read is past from the start of
+	 *         the input
+	 *
+	 * @see #lineEnd()
+	 */
+	@Override
+	public long lineStart() {
+		return bufferStart + start;
+	}
+
+	/**
+	 * The number of bytes the end of the last line returned by {@link #nextLine()}
+	 * is past from the start of the input, not including any line-termination
+	 * characters.
+	 *
+	 * @return The number of bytes the end of the last line read is past from the
+	 *         start of the input
+	 *
+	 * @throws IllegalStateException If no line has been read yet
+	 *
+	 * @see #lineStart()
+	 */
+	public long lineEnd() {
+		if (end < 0) throw new IllegalStateException("Must call nextLine() at least once first");
+		return bufferStart + end;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (in != null) in.close();
+	}
+}
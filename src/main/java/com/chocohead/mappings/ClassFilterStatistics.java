@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.Collection;
+
+/**
+ * How looking up a run of class names would be split by the filter which
+ * {@link MappingsRemapper} (along with the other remappers) puts in front of
+ * its classes. Lookups are counted as found, turned away by the filter without
+ * hashing the whole name, or getting past the filter without being found.
+ *
+ * @author Chocohead
+ */
+public final class ClassFilterStatistics {
+	/** How many lookups found their class */
+	public final long hits;
+	/** How many lookups were turned away by the filter */
+	public final long filtered;
+	/** How many lookups got past the filter but didn't find their class */
+	public final long misses;
+
+	private ClassFilterStatistics(long hits, long filtered, long misses) {
+		this.hits = hits;
+		this.filtered = filtered;
+		this.misses = misses;
+	}
+
+	/**
+	 * Counts how the given lookups would be split with the given classes in the filter.
+	 *
+	 * @param classes The names of the classes which can be found
+	 * @param lookups The class names to look up
+	 *
+	 * @return How the lookups were split
+	 */
+	public static ClassFilterStatistics count(Collection<String> classes, String[] lookups) {
+		FilteredClassMap.Counting<Boolean> map = new FilteredClassMap.Counting<>(classes.size());
+		for (String name : classes) map.put(name, Boolean.TRUE);
+
+		for (String name : lookups) map.get(name);
+
+		return new ClassFilterStatistics(map.hits(), map.filtered(), map.misses());
+	}
+
+	@Override
+	public String toString() {
+		return "ClassFilterStatistics[" + hits + " hits, " + filtered + " filtered, " + misses + " missed]";
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * The super class and interfaces of every class in a jar, so that members which are
+ * referred to through a class other than the one declaring them can be found. Only
+ * the header of each class is read, so none of the rest of the class is parsed.
+ *
+ * <p>
+ * Once read the hierarchy never changes, so is safe to be used from multiple threads
+ * at once.
+ *
+ * @author Chocohead
+ */
+public final class ClassHierarchy {
+	private static final String[] NO_PARENTS = new String[0];
+	private final Map<String, String[]> parents;
+
+	private ClassHierarchy(Map<String, String[]> parents) {
+		this.parents = parents;
+	}
+
+	/**
+	 * Reads the hierarchy of every class in the given jar.
+	 *
+	 * @param jar The jar to read the classes of
+	 *
+	 * @return The hierarchy of the classes in the jar
+	 *
+	 * @throws IOException If there is a problem reading the jar
+	 */
+	public static ClassHierarchy read(Path jar) throws IOException {
+		Map<String, String[]> parents = new HashMap<>();
+
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			for (Enumeration<? extends ZipEntry> it = zip.entries(); it.hasMoreElements();) {
+				ZipEntry entry = it.nextElement();
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) continue;
+
+				ClassReader reader;
+				try (InputStream in = zip.getInputStream(entry)) {
+					reader = new ClassReader(in);
+				}
+
+				String superName = reader.getSuperName();
+				String[] interfaces = reader.getInterfaces();
+
+				String[] classParents;
+				if (superName == null) {
+					classParents = interfaces.length > 0 ? interfaces : NO_PARENTS;
+				} else {
+					classParents = new String[interfaces.length + 1];
+					classParents[0] = superName;
+					System.arraycopy(interfaces, 0, classParents, 1, interfaces.length);
+				}
+
+				parents.put(reader.getClassName(), classParents);
+			}
+		}
+
+		return new ClassHierarchy(parents);
+	}
+
+	/**
+	 * Gets the direct parents of the given class, with the super class (if there is one)
+	 * first followed by the interfaces the class implements in the order they're declared.
+	 *
+	 * @param name The internal name of the class
+	 *
+	 * @return The parents of the class, or {@code null} if the class is not in the hierarchy
+	 */
+	String[] getParents(String name) {
+		return parents.get(name);
+	}
+
+	/** Returns how many classes are in the hierarchy */
+	public int size() {
+		return parents.size();
+	}
+
+	@Override
+	public String toString() {
+		return "ClassHierarchy[" + parents.size() + " classes]";
+	}
+}
@@ -0,0 +1,662 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import com.chocohead.mappings.MappedStringDeduplicator.Category;
+import com.chocohead.mappings.MappingsIndex.Table;
+import com.chocohead.mappings.visitor.ClassVisitor;
+import com.chocohead.mappings.visitor.Columns;
+import com.chocohead.mappings.visitor.FieldVisitor;
+import com.chocohead.mappings.visitor.MappingsVisitor;
+import com.chocohead.mappings.visitor.MethodVisitor;
+
+/**
+ * {@link Mappings} which store each namespace's names as a column rather than as
+ * an object per entry. Classes are rows in the class name columns, whilst fields
+ * and methods are rows in their own name columns along with the row of the class
+ * which owns them and their descriptor. Descriptors are only stored once for every
+ * namespace, with the class names for a namespace filled in as they are needed.
+ *
+ * <p>
+ * The entries given out are views over a row which are created as they are asked
+ * for, so holding onto them is no cheaper than asking again. The
+ * {@link EntryTriple}s a member gives are likewise created on every call.
+ *
+ * <p>
+ * The names can optionally be kept off the heap, stored once each as UTF-8 in a
+ * direct buffer and only turned back into {@link String}s when asked for. This
+ * leaves the garbage collector with little more than a few arrays of ints to
+ * scan, at the cost of decoding a name every time it is used. The shapes of the
+ * descriptors stay on the heap, as there are comparatively few of them.
+ *
+ * @author Chocohead
+ */
+public final class ColumnarMappings implements Mappings {
+	/** A column of names, indexed by row */
+	private static abstract class Column {
+		abstract String get(int row);
+
+		/** Gets the {@link Objects#hashCode(Object) hash code} of the name in the given row */
+		abstract int hash(int row);
+
+		abstract boolean matches(int row, String name);
+	}
+
+	private static final class HeapColumn extends Column {
+		private final String[] names;
+
+		HeapColumn(String[] names) {
+			this.names = names;
+		}
+
+		@Override
+		String get(int row) {
+			return names[row];
+		}
+
+		@Override
+		int hash(int row) {
+			return Objects.hashCode(names[row]);
+		}
+
+		@Override
+		boolean matches(int row, String name) {
+			return Objects.equals(names[row], name);
+		}
+	}
+
+	private static final class PooledColumn extends Column {
+		private final int[] offsets;
+		private final StringPool pool;
+
+		PooledColumn(int[] offsets, StringPool pool) {
+			this.offsets = offsets;
+			this.pool = pool;
+		}
+
+		@Override
+		String get(int row) {
+			return pool.get(offsets[row]);
+		}
+
+		@Override
+		int hash(int row) {
+			return pool.hashCode(offsets[row]);
+		}
+
+		@Override
+		boolean matches(int row, String name) {
+			return pool.equals(offsets[row], name);
+		}
+	}
+
+	/**
+	 * The distinct descriptors of the members, each stored as its shape with the class
+	 * names cut out along with the class for each cut. Classes in the mappings are held
+	 * as their row, so the descriptor in any namespace can be made, hashed or compared
+	 * by filling in that namespace's class names. Classes from outside the mappings are
+	 * the same in every namespace so are held by name.
+	 */
+	private static final class Descriptors {
+		/** Each descriptor with only the {@code L} and {@code ;} of the classes it uses left */
+		private final String[] shapes;
+		/** Where each descriptor's classes start in {@link #classes}, with where the last ends at the end */
+		private final int[] starts;
+		/** The row of each class, or the inverse of its index in {@link #externals} if it is not in the mappings */
+		private final int[] classes;
+		private final String[] externals;
+		private final Column[] classNames;
+
+		Descriptors(String[] shapes, int[] starts, int[] classes, String[] externals, Column[] classNames) {
+			this.shapes = shapes;
+			this.starts = starts;
+			this.classes = classes;
+			this.externals = externals;
+			this.classNames = classNames;
+		}
+
+		private String className(int namespace, int type) {
+			if (type < 0) return externals[~type];
+
+			//Classes missing a name in a namespace are left as they are in the first namespace
+			String out = classNames[namespace].get(type);
+			return out != null ? out : classNames[0].get(type);
+		}
+
+		String get(int namespace, int descriptor) {
+			String shape = shapes[descriptor];
+			int type = starts[descriptor];
+			if (type == starts[descriptor + 1]) return shape; //No classes to fill in
+
+			StringBuilder out = new StringBuilder(shape.length() + 32);
+			for (int i = 0; i < shape.length(); i++) {
+				char c = shape.charAt(i);
+				out.append(c);
+				if (c == 'L') out.append(className(namespace, classes[type++]));
+			}
+
+			return out.toString();
+		}
+
+		/** Gets the {@link String#hashCode() hash code} of the given descriptor without needing to make it */
+		int hash(int namespace, int descriptor) {
+			String shape = shapes[descriptor];
+			int hash = 0;
+
+			for (int i = 0, type = starts[descriptor]; i < shape.length(); i++) {
+				char c = shape.charAt(i);
+				hash = 31 * hash + c;
+
+				if (c == 'L') {
+					String name = className(namespace, classes[type++]);
+
+					for (int j = 0; j < name.length(); j++) {
+						hash = 31 * hash + name.charAt(j);
+					}
+				}
+			}
+
+			return hash;
+		}
+
+		boolean matches(int namespace, int descriptor, String desc) {
+			if (desc == null) return false;
+			String shape = shapes[descriptor];
+			int at = 0;
+
+			for (int i = 0, type = starts[descriptor]; i < shape.length(); i++) {
+				char c = shape.charAt(i);
+				if (at >= desc.length() || desc.charAt(at++) != c) return false;
+
+				if (c == 'L') {
+					String name = className(namespace, classes[type++]);
+					if (!desc.startsWith(name, at)) return false;
+					at += name.length();
+				}
+			}
+
+			return at == desc.length();
+		}
+	}
+
+	private static final class Members {
+		final int[] owners;
+		/** The name of each member, indexed by namespace then row */
+		final Column[] names;
+		/** The index of each member's descriptor, indexed by row */
+		final int[] descriptors;
+		final AtomicReferenceArray<Table> tables;
+
+		Members(int[] owners, Column[] names, int[] descriptors) {
+			this.owners = owners;
+			this.names = names;
+			this.descriptors = descriptors;
+			tables = new AtomicReferenceArray<>(names.length);
+		}
+
+		int size() {
+			return owners.length;
+		}
+	}
+
+	private final class ClassView implements ClassEntry {
+		private final int row;
+
+		ClassView(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public String get(String namespace) {
+			int id = namespaceId(namespace);
+			return id >= 0 ? classNames[id].get(row) : null;
+		}
+
+		@Override
+		public String get(int namespace) {
+			return classNames[namespace].get(row);
+		}
+
+		private ColumnarMappings owner() {
+			return ColumnarMappings.this;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof ClassView)) return false;
+
+			ClassView that = (ClassView) obj;
+			return row == that.row && owner() == that.owner();
+		}
+
+		@Override
+		public int hashCode() {
+			return row;
+		}
+	}
+
+	private final class MemberView implements FieldEntry, MethodEntry {
+		private final Members members;
+		private final int row;
+
+		MemberView(Members members, int row) {
+			this.members = members;
+			this.row = row;
+		}
+
+		@Override
+		public EntryTriple get(String namespace) {
+			int id = namespaceId(namespace);
+			return id >= 0 ? get(id) : null;
+		}
+
+		@Override
+		public EntryTriple get(int namespace) {
+			String name = members.names[namespace].get(row);
+			if (name == null) return null;
+
+			return new EntryTriple(classNames[namespace].get(members.owners[row]), name, descriptors.get(namespace, members.descriptors[row]));
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof MemberView)) return false;
+
+			MemberView that = (MemberView) obj;
+			return row == that.row && members == that.members;
+		}
+
+		@Override
+		public int hashCode() {
+			return members.hashCode() * 31 + row;
+		}
+	}
+
+	private static final class Builder implements MappingsVisitor, ClassVisitor {
+		private static final int INITIAL_SIZE = 1024;
+		private final MappedStringDeduplicator deduplicator;
+		private String[] namespaces;
+		private String[][] classNames;
+		private int classes = -1;
+		private int[] fieldOwners = new int[INITIAL_SIZE], methodOwners = new int[INITIAL_SIZE];
+		private String[][] fieldNames, methodNames;
+		private int[] fieldDescriptors = new int[INITIAL_SIZE], methodDescriptors = new int[INITIAL_SIZE];
+		/** The index of each descriptor in the first namespace, shared between fields and methods */
+		private final Map<String, Integer> descriptorIds = new HashMap<>();
+		private int fields, methods;
+
+		Builder(MappedStringDeduplicator deduplicator) {
+			this.deduplicator = deduplicator;
+		}
+
+		@Override
+		public void visitVersion(int major, int minor) {
+		}
+
+		@Override
+		public void visitNamespaces(String... namespaces) {
+			this.namespaces = namespaces;
+
+			classNames = new String[namespaces.length][INITIAL_SIZE];
+			fieldNames = new String[namespaces.length][INITIAL_SIZE];
+			methodNames = new String[namespaces.length][INITIAL_SIZE];
+		}
+
+		@Override
+		public void visitProperty(String name) {
+		}
+
+		@Override
+		public void visitProperty(String name, String value) {
+		}
+
+		private int descriptorId(Category category, CharSequence descriptor) {
+			String desc = deduplicator.deduplicate(category, descriptor);
+
+			Integer out = descriptorIds.get(desc);
+			if (out == null) descriptorIds.put(desc, out = descriptorIds.size());
+			return out;
+		}
+
+		private static void grow(String[][] columns, int size) {
+			for (int i = 0; i < columns.length; i++) {
+				if (columns[i] != null) columns[i] = Arrays.copyOf(columns[i], size);
+			}
+		}
+
+		private void add(String[][] columns, int row, Category category, Columns names, int from) {
+			assert names.size() - from == columns.length;
+
+			for (int i = 0; i < columns.length; i++) {
+				columns[i][row] = deduplicator.deduplicate(category, names.get(from + i));
+			}
+		}
+
+		@Override
+		public ClassVisitor visitClass(long offset, String[] names) {
+			return visitClass(offset, new ArrayColumns(names));
+		}
+
+		@Override
+		public ClassVisitor visitClass(long offset, Columns names) {
+			assert names.size() > 0;
+
+			if (++classes == classNames[0].length) grow(classNames, classes * 2);
+			add(classNames, classes, Category.CLASS_NAME, names, 0);
+
+			return this;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(long offset, String[] names, String descriptor) {
+			return visitMethod(new ArrayColumns(names), 0, descriptor);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(long offset, Columns columns) {
+			return visitMethod(columns, 1, columns.get(0));
+		}
+
+		private MethodVisitor visitMethod(Columns names, int from, CharSequence descriptor) {
+			assert names.size() > from && descriptor.length() > 0;
+
+			if (methods == methodOwners.length) {
+				methodOwners = Arrays.copyOf(methodOwners, methods * 2);
+				methodDescriptors = Arrays.copyOf(methodDescriptors, methods * 2);
+				grow(methodNames, methods * 2);
+			}
+
+			methodOwners[methods] = classes;
+			methodDescriptors[methods] = descriptorId(Category.METHOD_DESCRIPTOR, descriptor);
+			add(methodNames, methods++, Category.NAME, names, from);
+
+			return null;
+		}
+
+		@Override
+		public FieldVisitor visitField(long offset, String[] names, String descriptor) {
+			return visitField(new ArrayColumns(names), 0, descriptor);
+		}
+
+		@Override
+		public FieldVisitor visitField(long offset, Columns columns) {
+			return visitField(columns, 1, columns.get(0));
+		}
+
+		private FieldVisitor visitField(Columns names, int from, CharSequence descriptor) {
+			assert names.size() > from && descriptor.length() > 0;
+
+			if (fields == fieldOwners.length) {
+				fieldOwners = Arrays.copyOf(fieldOwners, fields * 2);
+				fieldDescriptors = Arrays.copyOf(fieldDescriptors, fields * 2);
+				grow(fieldNames, fields * 2);
+			}
+
+			fieldOwners[fields] = classes;
+			fieldDescriptors[fields] = descriptorId(Category.FIELD_DESCRIPTOR, descriptor);
+			add(fieldNames, fields++, Category.NAME, names, from);
+
+			return null;
+		}
+
+		@Override
+		public void visitComment(String line) {
+		}
+
+		/**
+		 * Cuts the class names out of every descriptor seen, swapping them for the row
+		 * of the class they are in the first namespace where there is one.
+		 */
+		private Descriptors tokeniseDescriptors(int classes, Column[] classColumns) {
+			Map<String, Integer> classRows = new HashMap<>();
+			for (int row = 0; row < classes; row++) {
+				classRows.put(classNames[0][row], row);
+			}
+
+			String[] shapes = new String[descriptorIds.size()];
+			int[] starts = new int[shapes.length + 1];
+			int[] types = new int[INITIAL_SIZE];
+			int size = 0;
+			Map<String, Integer> externals = new HashMap<>();
+
+			//The descriptors are numbered in the order they were first seen
+			String[] descriptors = new String[shapes.length];
+			for (Map.Entry<String, Integer> entry : descriptorIds.entrySet()) {
+				descriptors[entry.getValue()] = entry.getKey();
+			}
+
+			StringBuilder shape = new StringBuilder();
+			for (int id = 0; id < descriptors.length; id++) {
+				String descriptor = descriptors[id];
+				starts[id] = size;
+				shape.setLength(0);
+
+				for (int i = 0; i < descriptor.length(); i++) {
+					char c = descriptor.charAt(i);
+					shape.append(c);
+
+					if (c == 'L') {
+						int end = descriptor.indexOf(';', i);
+						String type = descriptor.substring(i + 1, end);
+						i = end - 1; //Leave the ; to be added to the shape
+
+						Integer row = classRows.get(type);
+						if (row == null) {
+							Integer external = externals.get(type);
+							if (external == null) externals.put(type, external = externals.size());
+							row = ~external;
+						}
+
+						if (size == types.length) types = Arrays.copyOf(types, size * 2);
+						types[size++] = row;
+					}
+				}
+
+				//Descriptors without any classes are their own shape
+				shapes[id] = size == starts[id] ? descriptor : deduplicator.deduplicate(descriptor.charAt(0) == '(' ? Category.METHOD_DESCRIPTOR : Category.FIELD_DESCRIPTOR, shape);
+			}
+			starts[descriptors.length] = size;
+
+			String[] externalNames = new String[externals.size()];
+			for (Map.Entry<String, Integer> entry : externals.entrySet()) {
+				externalNames[entry.getValue()] = deduplicator.deduplicate(Category.CLASS_NAME, entry.getKey());
+			}
+
+			return new Descriptors(shapes, starts, Arrays.copyOf(types, size), externalNames, classColumns);
+		}
+
+		ColumnarMappings build(boolean offHeap) {
+			int classes = this.classes + 1;
+			grow(classNames, classes);
+			grow(fieldNames, fields);
+			grow(methodNames, methods);
+
+			Function<String[], Column> toColumn;
+			if (offHeap) {
+				StringPool.Builder poolBuilder = new StringPool.Builder();
+				for (String[][] table : Arrays.asList(classNames, fieldNames, methodNames)) {
+					for (String[] column : table) {
+						for (String name : column) poolBuilder.add(name);
+					}
+				}
+
+				StringPool pool = poolBuilder.build();
+				toColumn = names -> new PooledColumn(Arrays.stream(names).mapToInt(poolBuilder::add).toArray(), pool);
+			} else {
+				toColumn = HeapColumn::new;
+			}
+
+			Column[] classColumns = toColumns(classNames, toColumn);
+			return new ColumnarMappings(namespaces, classColumns, classes, tokeniseDescriptors(classes, classColumns),
+					new Members(Arrays.copyOf(fieldOwners, fields), toColumns(fieldNames, toColumn), Arrays.copyOf(fieldDescriptors, fields)),
+					new Members(Arrays.copyOf(methodOwners, methods), toColumns(methodNames, toColumn), Arrays.copyOf(methodDescriptors, methods)));
+		}
+
+		private static Column[] toColumns(String[][] table, Function<String[], Column> toColumn) {
+			return Arrays.stream(table).map(toColumn).toArray(Column[]::new);
+		}
+	}
+
+	static ColumnarMappings read(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, boolean offHeap) throws IOException {
+		Builder builder = new Builder(deduplicator);
+		TinyV2Visitor.read(firstLine, reader, builder, null);
+		return builder.build(offHeap);
+	}
+
+	private final String[] namespaces;
+	private final Map<String, Integer> namespacesToIds = new HashMap<>();
+	/** The name of each class, indexed by namespace then row */
+	private final Column[] classNames;
+	private final int classes;
+	private final AtomicReferenceArray<Table> classTables;
+	private final Descriptors descriptors;
+	private final Members fields, methods;
+
+	private ColumnarMappings(String[] namespaces, Column[] classNames, int classes, Descriptors descriptors, Members fields, Members methods) {
+		this.namespaces = namespaces;
+		this.classNames = classNames;
+		classTables = new AtomicReferenceArray<>(namespaces.length);
+		this.classes = classes;
+		this.descriptors = descriptors;
+		this.fields = fields;
+		this.methods = methods;
+
+		for (int i = 0; i < namespaces.length; i++) {
+			namespacesToIds.put(namespaces[i], i);
+		}
+	}
+
+	@Override
+	public Collection<String> getNamespaces() {
+		return Collections.unmodifiableList(Arrays.asList(namespaces));
+	}
+
+	@Override
+	public int namespaceId(String namespace) {
+		return namespacesToIds.getOrDefault(namespace, -1);
+	}
+
+	private static Table table(AtomicReferenceArray<Table> tables, int namespace, IntFunction<Table> factory) {
+		Table out = tables.get(namespace);
+
+		if (out == null) {
+			synchronized (tables) {
+				out = tables.get(namespace);
+				if (out == null) tables.set(namespace, out = factory.apply(namespace));
+			}
+		}
+
+		return out;
+	}
+
+	@Override
+	public ClassEntry getClass(String namespace, String name) {
+		int id = namespaceId(namespace);
+		if (id < 0) return null;
+
+		Column column = classNames[id];
+		Table table = table(classTables, id, k -> {
+			Table out = new Table(classes);
+
+			for (int row = 0; row < classes; row++) {
+				if (!column.matches(row, null)) out.add(row, column.hash(row));
+			}
+
+			return out;
+		});
+
+		int row = table.find(name.hashCode(), candidate -> column.matches(candidate, name));
+		return row >= 0 ? new ClassView(row) : null;
+	}
+
+	private MemberView getMember(Members members, String namespace, String owner, String name, String desc) {
+		int id = namespaceId(namespace);
+		if (id < 0) return null;
+
+		Column owners = classNames[id], names = members.names[id];
+		Table table = table(members.tables, id, k -> {
+			Table out = new Table(members.size());
+
+			for (int row = 0; row < members.size(); row++) {
+				if (!names.matches(row, null)) out.add(row, owners.hash(members.owners[row]) * 37 + names.hash(row) * 19 + descriptors.hash(id, members.descriptors[row]));
+			}
+
+			return out;
+		});
+
+		int row = table.find(MappingsIndex.hash(owner, name, desc), candidate -> names.matches(candidate, name)
+				&& descriptors.matches(id, members.descriptors[candidate], desc) && owners.matches(members.owners[candidate], owner));
+		return row >= 0 ? new MemberView(members, row) : null;
+	}
+
+	@Override
+	public FieldEntry getField(String namespace, String owner, String name, String desc) {
+		return getMember(fields, namespace, owner, name, desc);
+	}
+
+	@Override
+	public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+		return getMember(methods, namespace, owner, name, desc);
+	}
+
+	@Override
+	public List<ClassEntry> getClassEntries() {
+		return new AbstractList<ClassEntry>() {
+			@Override
+			public ClassEntry get(int index) {
+				if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+				return new ClassView(index);
+			}
+
+			@Override
+			public int size() {
+				return classes;
+			}
+		};
+	}
+
+	private List<MemberView> members(Members members) {
+		return new AbstractList<MemberView>() {
+			@Override
+			public MemberView get(int index) {
+				if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+				return new MemberView(members, index);
+			}
+
+			@Override
+			public int size() {
+				return members.size();
+			}
+		};
+	}
+
+	@Override
+	public List<? extends FieldEntry> getFieldEntries() {
+		return members(fields);
+	}
+
+	@Override
+	public List<? extends MethodEntry> getMethodEntries() {
+		return members(methods);
+	}
+}
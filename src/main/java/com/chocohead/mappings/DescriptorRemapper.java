@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * Remaps field and method descriptors into a single namespace, remembering what each
+ * descriptor remapped to. Far fewer descriptors are used than there are members, so
+ * most only need parsing once. Descriptors without any classes in are left as is.
+ *
+ * <p>
+ * Safe to be used from multiple threads at once, so long as the wrapped remapper is.
+ * Equal descriptors always remap to the same instance.
+ *
+ * @author Chocohead
+ */
+final class DescriptorRemapper implements UnaryOperator<String> {
+	private final Remapper remapper;
+	private final ConcurrentMap<String, String> cache = new ConcurrentHashMap<>();
+
+	DescriptorRemapper(Remapper remapper) {
+		this.remapper = remapper;
+	}
+
+	@Override
+	public String apply(String desc) {
+		if (desc.indexOf('L') < 0) return desc; //Only primitives, nothing to remap
+
+		String out = cache.get(desc);
+		if (out == null) {
+			out = desc.charAt(0) == '(' ? remapper.mapMethodDesc(desc) : remapper.mapDesc(desc);
+
+			String existing = cache.putIfAbsent(desc, out);
+			if (existing != null) out = existing;
+		}
+
+		return out;
+	}
+}
@@ -19,6 +19,26 @@ final class ExtendedWrapper implements ExtendedMappings {
 		return mappings.getNamespaces();
 	}
 
+	@Override
+	public int namespaceId(String namespace) {
+		return mappings.namespaceId(namespace);
+	}
+
+	@Override
+	public ClassEntry getClass(String namespace, String name) {
+		return mappings.getClass(namespace, name);
+	}
+
+	@Override
+	public FieldEntry getField(String namespace, String owner, String name, String desc) {
+		return mappings.getField(namespace, owner, name, desc);
+	}
+
+	@Override
+	public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+		return mappings.getMethod(namespace, owner, name, desc);
+	}
+
 	@Override
 	public Collection<? extends ClassEntry> getClassEntries() {
 		return mappings.getClassEntries();
@@ -18,4 +18,14 @@ package com.chocohead.mappings;
 
 public interface FieldEntry {
 	EntryTriple get(String namespace);
+
+	/**
+	 * Gets the mapping in the namespace with the given id, as returned by {@link Mappings#namespaceId(String)}
+	 * for the mappings this entry came from.
+	 *
+	 * @throws UnsupportedOperationException If the entry doesn't support namespace ids
+	 */
+	default EntryTriple get(int namespace) {
+		throw new UnsupportedOperationException(getClass() + " does not support namespace ids");
+	}
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A map of class names with a Bloom filter in front, so that looking up classes
+ * which aren't in the map (such as those from the JDK or other libraries) can
+ * usually be turned away without hashing the whole name. The filter only looks at
+ * the length of a name along with its first and last few characters, as the
+ * package and simple name between them are what tell most classes apart.
+ *
+ * <p>
+ * Safe to be looked up in from multiple threads at once after the last class is
+ * {@link #put(String, Object) put}. {@link Counting} maps also count how well the
+ * filter is doing, which normal maps skip to keep lookups as cheap as possible.
+ *
+ * @author Chocohead
+ */
+class FilteredClassMap<V> {
+	/**
+	 * A filtered map which counts how many lookups are found, turned away by the filter,
+	 * or get past the filter without being found.
+	 */
+	static final class Counting<V> extends FilteredClassMap<V> {
+		private final LongAdder hits = new LongAdder(), filtered = new LongAdder(), misses = new LongAdder();
+
+		Counting(int expected) {
+			super(expected);
+		}
+
+		@Override
+		V get(String name) {
+			if (!mightContain(hash(name))) {
+				filtered.increment();
+				return null;
+			}
+
+			V out = classes.get(name);
+			(out != null ? hits : misses).increment();
+			return out;
+		}
+
+		/** Returns how many lookups have found their class */
+		long hits() {
+			return hits.sum();
+		}
+
+		/** Returns how many lookups have been turned away by the filter */
+		long filtered() {
+			return filtered.sum();
+		}
+
+		/** Returns how many lookups got past the filter but didn't find their class */
+		long misses() {
+			return misses.sum();
+		}
+
+		@Override
+		public String toString() {
+			return "FilteredClassMap[" + classes.size() + " classes, " + hits() + " hits, " + filtered() + " filtered, " + misses() + " missed]";
+		}
+	}
+
+	private static final int PREFIX = 8, SUFFIX = 4;
+	final Map<String, V> classes;
+	private final long[] filter;
+	private final int mask;
+
+	/**
+	 * @param expected Roughly how many classes will be put in the map
+	 */
+	FilteredClassMap(int expected) {
+		classes = new HashMap<>(expected * 4 / 3 + 1);
+		//Allow around 8 bits for each class, giving a false positive rate of around 5%
+		filter = new long[Integer.highestOneBit(Math.max(expected / 8, 1)) << 1];
+		mask = filter.length * 64 - 1;
+	}
+
+	static int hash(String name) {
+		int length = name.length();
+		int hash = length;
+
+		for (int i = 0, end = Math.min(length, PREFIX); i < end; i++) {
+			hash = 31 * hash + name.charAt(i);
+		}
+
+		for (int i = Math.max(PREFIX, length - SUFFIX); i < length; i++) {
+			hash = 31 * hash + name.charAt(i);
+		}
+
+		return hash;
+	}
+
+	boolean mightContain(int hash) {
+		int first = hash & mask, second = hash * 0x9E3779B9 >>> 7 & mask;
+		return (filter[first >>> 6] & 1L << first) != 0 && (filter[second >>> 6] & 1L << second) != 0;
+	}
+
+	void put(String name, V value) {
+		int hash = hash(name);
+		int first = hash & mask, second = hash * 0x9E3779B9 >>> 7 & mask;
+		filter[first >>> 6] |= 1L << first;
+		filter[second >>> 6] |= 1L << second;
+
+		classes.put(name, value);
+	}
+
+	/**
+	 * Gets the value for the given class name.
+	 *
+	 * @return The value for the name, or {@code null} if the class isn't in the map
+	 */
+	V get(String name) {
+		return mightContain(hash(name)) ? classes.get(name) : null;
+	}
+
+	@Override
+	public String toString() {
+		return "FilteredClassMap[" + classes.size() + " classes]";
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Translates names from one namespace of some {@link Mappings} into another, making
+ * use of the numbered names intermediary gives everything. Names in the form of
+ * {@code class_<N>}, {@code method_<N>} and {@code field_<N>} are held in arrays by
+ * their number, so translating them is only a parse of the number and an array read
+ * rather than hashing the whole name. Numbers well beyond how many entries there are
+ * are held in a map instead, so a stray large number can't make the arrays huge.
+ *
+ * <p>
+ * Classes which aren't numbered are translated through a map instead. Methods and
+ * fields which aren't numbered are left as they are, as their names alone don't pick
+ * out a single member; look them up through {@link Mappings#getMethod(String, String, String, String)}
+ * or {@link Mappings#getField(String, String, String, String)} with their owner and
+ * descriptor instead.
+ *
+ * <p>
+ * The index is a snapshot of the mappings when it was made, and is safe to be used
+ * from multiple threads at once.
+ *
+ * @author Chocohead
+ */
+public final class IntermediaryIndex {
+	private static final String CLASS = "class_", METHOD = "method_", FIELD = "field_";
+	/** The names of the numbered classes in the source namespace, to check the package of a class matches */
+	private final String[] classSources;
+	private final String[] classes, methods, fields;
+	private final Map<String, String> otherClasses;
+	/** Numbered members which are past the end of {@link #methods} or {@link #fields} */
+	private final Map<String, String> otherMethods = new HashMap<>(), otherFields = new HashMap<>();
+
+	private IntermediaryIndex(String[] classSources, String[] classes, Map<String, String> otherClasses, Mappings mappings, String from, String to) {
+		this.classSources = classSources;
+		this.classes = classes;
+		this.otherClasses = otherClasses;
+		methods = members(mappings.getMethodEntries(), MethodEntry::get, from, to, METHOD, otherMethods);
+		fields = members(mappings.getFieldEntries(), FieldEntry::get, from, to, FIELD, otherFields);
+	}
+
+	/**
+	 * Indexes the given mappings for translating from one namespace into another.
+	 * Names without a translation in the target namespace translate to themselves.
+	 *
+	 * @param mappings The mappings to index
+	 * @param from The namespace to translate names from, normally {@code intermediary}
+	 * @param to The namespace to translate names into
+	 *
+	 * @return An index of the mappings between the two namespaces
+	 *
+	 * @throws IllegalArgumentException If the mappings don't have either namespace
+	 */
+	public static IntermediaryIndex create(Mappings mappings, String from, String to) {
+		if (mappings.namespaceId(from) < 0) throw new IllegalArgumentException("Mappings don't have namespace " + from + ": " + mappings.getNamespaces());
+		if (mappings.namespaceId(to) < 0) throw new IllegalArgumentException("Mappings don't have namespace " + to + ": " + mappings.getNamespaces());
+
+		Collection<? extends ClassEntry> entries = mappings.getClassEntries();
+		int limit = denseLimit(entries.size());
+
+		String[] classSources = new String[64], classes = new String[64];
+		Map<String, String> otherClasses = new HashMap<>();
+		for (ClassEntry entry : entries) {
+			String name = entry.get(from);
+			if (name == null) continue;
+
+			String translation = entry.get(to);
+			if (translation == null) translation = name;
+
+			int number = number(name, CLASS, true);
+			if (number >= 0 && number < limit) {
+				if (number >= classes.length) {
+					int size = Math.min(Math.max(classes.length * 2, number + 1), limit);
+					classSources = Arrays.copyOf(classSources, size);
+					classes = Arrays.copyOf(classes, size);
+				}
+
+				if (classes[number] == null) {
+					classSources[number] = name;
+					classes[number] = translation;
+					continue;
+				}
+			}
+
+			otherClasses.putIfAbsent(name, translation);
+		}
+
+		return new IntermediaryIndex(classSources, classes, otherClasses, mappings, from, to);
+	}
+
+	/**
+	 * Gives how far the numbers are held in arrays, given how many entries there are. Intermediary
+	 * numbers are only a little higher than the number of entries, as removed names leave gaps.
+	 */
+	private static int denseLimit(int entries) {
+		return entries * 4 + 64;
+	}
+
+	private static <T> String[] members(Collection<? extends T> entries, BiFunction<T, String, EntryTriple> getter, String from, String to, String prefix, Map<String, String> others) {
+		int limit = denseLimit(entries.size());
+		String[] out = new String[64];
+
+		for (T entry : entries) {
+			EntryTriple name = getter.apply(entry, from);
+			if (name == null) continue;
+
+			int number = number(name.getName(), prefix, false);
+			if (number < 0) continue;
+
+			EntryTriple translation = getter.apply(entry, to);
+			String target = translation != null ? translation.getName() : name.getName();
+
+			if (number < limit) {
+				if (number >= out.length) out = Arrays.copyOf(out, Math.min(Math.max(out.length * 2, number + 1), limit));
+				if (out[number] == null) out[number] = target; //Overriding methods share the same number
+			} else {
+				others.putIfAbsent(name.getName(), target);
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Parses the number at the end of the given name if it is the given prefix followed
+	 * by only digits. The digits are read backwards from the end, so class names don't
+	 * need searching for where their package ends first.
+	 *
+	 * @param className Whether the name is a class name, so the prefix can follow a package or outer class
+	 *
+	 * @return The number, or {@code -1} if the name isn't numbered
+	 */
+	private static int number(String name, String prefix, boolean className) {
+		int end = name.length(), start = end;
+
+		int out = 0;
+		for (int scale = 1; start > 0; scale *= 10) {
+			char c = name.charAt(start - 1);
+			if (c < '0' || c > '9') break;
+
+			//Too many digits might overflow
+			if (end - --start > 9) return -1;
+			out += (c - '0') * scale;
+		}
+
+		//Leading zeros would make different names the same number
+		if (start == end || name.charAt(start) == '0' && end - start > 1) return -1;
+
+		int from = start - prefix.length();
+		if (from < 0 || !name.startsWith(prefix, from)) return -1;
+		if (from > 0 && !(className && (name.charAt(from - 1) == '/' || name.charAt(from - 1) == '$'))) return -1;
+
+		return out;
+	}
+
+	private static String lookup(String[] names, int number) {
+		return number >= 0 && number < names.length ? names[number] : null;
+	}
+
+	private static String lookup(String[] names, Map<String, String> others, String name, int number) {
+		if (number < 0) return null;
+		return number < names.length ? names[number] : others.get(name);
+	}
+
+	/**
+	 * Translates the given class name, such as {@code net/minecraft/class_1234}.
+	 *
+	 * @param name The internal name of the class in the source namespace
+	 *
+	 * @return The name in the target namespace, or the given name if it isn't in the mappings
+	 */
+	public String mapClass(String name) {
+		int number = number(name, CLASS, true);
+
+		if (number >= 0) {
+			String out = lookup(classes, number);
+			if (out != null && name.equals(classSources[number])) return out;
+		}
+
+		return otherClasses.getOrDefault(name, name);
+	}
+
+	/**
+	 * Translates the given method name, such as {@code method_1234}.
+	 *
+	 * @param name The name of the method in the source namespace
+	 *
+	 * @return The name in the target namespace, or the given name if it isn't a numbered method in the mappings
+	 */
+	public String mapMethodName(String name) {
+		String out = lookup(methods, otherMethods, name, number(name, METHOD, false));
+		return out != null ? out : name;
+	}
+
+	/**
+	 * Translates the given field name, such as {@code field_1234}.
+	 *
+	 * @param name The name of the field in the source namespace
+	 *
+	 * @return The name in the target namespace, or the given name if it isn't a numbered field in the mappings
+	 */
+	public String mapFieldName(String name) {
+		String out = lookup(fields, otherFields, name, number(name, FIELD, false));
+		return out != null ? out : name;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * Remaps every class in a jar, copying everything else across as it is. Classes are
+ * read, remapped and written again in parallel, but the output jar always has its
+ * entries in the same order as the input jar, so remapping the same jar twice gives
+ * the same output.
+ *
+ * <p>
+ * Only a few entries more than the pool has threads are ever being remapped at once,
+ * with each written out as soon as every entry before it has been. This keeps how
+ * much of the jar is held in memory down to a handful of classes, rather than growing
+ * with the size of the jar.
+ *
+ * <p>
+ * Classes are remapped with a {@link LambdaClassRemapper}, so lambdas and method references
+ * keep implementing their interfaces when the interfaces' methods are renamed.
+ *
+ * <p>
+ * Signature files are left out of the output, as remapping the classes breaks them.
+ *
+ * @author Chocohead
+ */
+public final class JarRemapper {
+	/** How many entries each thread in the pool can have waiting to be written */
+	private static final int ENTRIES_PER_THREAD = 4;
+
+	/** An entry ready to be written to the output jar */
+	private static final class Output {
+		final ZipEntry entry;
+		final byte[] contents;
+
+		Output(ZipEntry entry, byte[] contents) {
+			this.entry = entry;
+			this.contents = contents;
+		}
+	}
+
+	private JarRemapper() {
+	}
+
+	/**
+	 * Remaps the classes in the given jar from one namespace of the given mappings into another.
+	 * The {@link ClassHierarchy} of the jar is read first, so members referred to through classes
+	 * other than those which declare them are remapped too.
+	 *
+	 * @param input The jar to remap
+	 * @param output Where to write the remapped jar, replacing any existing file
+	 * @param mappings The mappings to remap with
+	 * @param from The namespace the jar is in
+	 * @param to The namespace to remap the jar into
+	 * @param pool The pool to remap the classes in, or {@code null} to remap on the calling thread
+	 *
+	 * @throws IllegalArgumentException If the mappings don't have either namespace
+	 * @throws IOException If there is a problem reading the input jar or writing the output
+	 */
+	public static void remap(Path input, Path output, Mappings mappings, String from, String to, ForkJoinPool pool) throws IOException {
+		remap(input, output, new MappingsRemapper(mappings, from, to, ClassHierarchy.read(input)), pool);
+	}
+
+	/**
+	 * Remaps the classes in the given jar using the given remapper.
+	 *
+	 * @param input The jar to remap
+	 * @param output Where to write the remapped jar, replacing any existing file
+	 * @param remapper The remapper to remap with, which must be safe to use from multiple threads at once if a pool is given
+	 * @param pool The pool to remap the classes in, or {@code null} to remap on the calling thread
+	 *
+	 * @throws IOException If there is a problem reading the input jar or writing the output
+	 */
+	public static void remap(Path input, Path output, Remapper remapper, ForkJoinPool pool) throws IOException {
+		try (ZipFile jar = new ZipFile(input.toFile()); ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(output))) {
+			if (pool == null) {
+				for (Enumeration<? extends ZipEntry> it = jar.entries(); it.hasMoreElements();) {
+					ZipEntry entry = it.nextElement();
+					if (isSignature(entry)) continue;
+
+					write(out, remap(jar, entry, remapper));
+				}
+			} else {
+				ArrayDeque<ForkJoinTask<Output>> pending = new ArrayDeque<>();
+				int window = pool.getParallelism() * ENTRIES_PER_THREAD;
+
+				try {
+					for (Enumeration<? extends ZipEntry> it = jar.entries(); it.hasMoreElements();) {
+						ZipEntry entry = it.nextElement();
+						if (isSignature(entry)) continue;
+
+						//Wait for the oldest entry to be remapped before starting any more
+						if (pending.size() >= window) write(out, TinyV2Visitor.await(pending.poll()));
+						pending.add(pool.submit((Callable<Output>) () -> remap(jar, entry, remapper)));
+					}
+
+					while (!pending.isEmpty()) {
+						write(out, TinyV2Visitor.await(pending.poll()));
+					}
+				} finally {
+					//The jar is about to be closed, so any entries still being read will fail anyway
+					for (ForkJoinTask<Output> task : pending) task.cancel(false);
+				}
+			}
+		}
+	}
+
+	private static boolean isSignature(ZipEntry entry) {
+		String name = entry.getName();
+		if (!name.startsWith("META-INF/") || name.indexOf('/', 9) >= 0) return false;
+
+		name = name.toUpperCase(Locale.ROOT);
+		return name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC") || name.startsWith("META-INF/SIG-");
+	}
+
+	private static Output remap(ZipFile jar, ZipEntry entry, Remapper remapper) throws IOException {
+		String name = entry.getName();
+		if (entry.isDirectory()) return new Output(copy(entry, name), null);
+
+		byte[] contents;
+		try (InputStream in = jar.getInputStream(entry)) {
+			contents = readAll(in, entry.getSize());
+		}
+
+		if (name.endsWith(".class")) {
+			ClassReader reader = new ClassReader(contents);
+			//Remapping keeps the stack map frames as they are, so there is no need to compute them again
+			ClassWriter writer = new ClassWriter(0);
+			reader.accept(new LambdaClassRemapper(writer, remapper), 0);
+
+			//Only rename the class part, keeping any prefix such as META-INF/versions/9/ for multi-release jars
+			String className = reader.getClassName() + ".class";
+			int prefix = name.length() - className.length();
+			if (name.endsWith(className) && (prefix == 0 || name.charAt(prefix - 1) == '/')) {
+				name = name.substring(0, prefix) + remapper.map(reader.getClassName()) + ".class";
+			}
+			contents = writer.toByteArray();
+		}
+
+		return new Output(copy(entry, name), contents);
+	}
+
+	private static ZipEntry copy(ZipEntry entry, String name) {
+		ZipEntry out = new ZipEntry(name);
+
+		out.setTime(entry.getTime());
+		if (entry.getExtra() != null) out.setExtra(entry.getExtra());
+		if (entry.getComment() != null) out.setComment(entry.getComment());
+
+		return out;
+	}
+
+	private static byte[] readAll(InputStream in, long size) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 && size <= Integer.MAX_VALUE ? (int) size : 8192);
+		byte[] buffer = new byte[8192];
+
+		for (int read; (read = in.read(buffer)) > 0;) {
+			out.write(buffer, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+
+	private static void write(ZipOutputStream out, Output output) throws IOException {
+		out.putNextEntry(output.entry);
+		if (output.contents != null) out.write(output.contents);
+		out.closeEntry();
+	}
+}
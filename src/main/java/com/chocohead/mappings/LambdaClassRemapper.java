@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.MethodRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * A {@link ClassRemapper} which also remaps the names of lambdas and method references.
+ * These are made by {@code invokedynamic} instructions bootstrapped by {@code LambdaMetafactory},
+ * where the name is the method of the functional interface being implemented. A plain
+ * {@link ClassRemapper} leaves that name as it is, so if the interface's method is renamed
+ * the lambda no longer implements it.
+ *
+ * <p>
+ * The name is remapped as a method of the interface the instruction returns, with the
+ * erased descriptor of the interface's method given as the first bootstrap argument. If
+ * the remapper walks the {@link ClassHierarchy}, methods the interface inherits are
+ * found too.
+ *
+ * @author Chocohead
+ */
+public class LambdaClassRemapper extends ClassRemapper {
+	private static final String LAMBDA_METAFACTORY = "java/lang/invoke/LambdaMetafactory";
+
+	/**
+	 * Creates a class remapper which passes the remapped class on to the given visitor.
+	 *
+	 * @param classVisitor The visitor to pass the remapped class on to
+	 * @param remapper The remapper to remap with
+	 */
+	public LambdaClassRemapper(ClassVisitor classVisitor, Remapper remapper) {
+		super(classVisitor, remapper);
+	}
+
+	@Override
+	protected MethodVisitor createMethodRemapper(MethodVisitor methodVisitor) {
+		return new MethodRemapper(methodVisitor, remapper) {
+			@Override
+			public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+				if (!isLambda(bootstrapMethodHandle, bootstrapMethodArguments)) {
+					super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+					return;
+				}
+
+				if (mv != null) {
+					Object[] arguments = new Object[bootstrapMethodArguments.length];
+					for (int i = 0; i < arguments.length; i++) {
+						arguments[i] = remapper.mapValue(bootstrapMethodArguments[i]);
+					}
+
+					String owner = Type.getReturnType(descriptor).getInternalName();
+					String method = ((Type) bootstrapMethodArguments[0]).getDescriptor();
+
+					//Going straight to the next visitor, as the super method would map the name again
+					mv.visitInvokeDynamicInsn(remapper.mapMethodName(owner, name, method), remapper.mapMethodDesc(descriptor),
+							(Handle) remapper.mapValue(bootstrapMethodHandle), arguments);
+				}
+			}
+		};
+	}
+
+	private static boolean isLambda(Handle bootstrap, Object[] arguments) {
+		return LAMBDA_METAFACTORY.equals(bootstrap.getOwner()) && arguments.length > 0 && arguments[0] instanceof Type;
+	}
+}
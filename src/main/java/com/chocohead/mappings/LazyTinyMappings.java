@@ -0,0 +1,389 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import com.chocohead.mappings.MappedStringDeduplicator.Category;
+import com.chocohead.mappings.model.CommentEntry;
+import com.chocohead.mappings.model.Comments;
+import com.chocohead.mappings.model.CommentsImpl;
+import com.chocohead.mappings.model.LocalVariableEntry;
+import com.chocohead.mappings.model.MethodParameterEntry;
+import com.chocohead.mappings.visitor.ClassVisitor;
+import com.chocohead.mappings.visitor.MappingsVisitor;
+
+/**
+ * {@link ExtendedMappings} for a Tiny V2 file which only reads the names of the
+ * classes up front, along with where each class's body is in the file. The
+ * methods, fields, parameters, locals and comments of a class are only read the
+ * first time they are asked for, either through {@link #getMembers(ClassEntry)}
+ * for a single class or through one of the {@link ExtendedMappings} methods for
+ * every class at once.
+ *
+ * <p>
+ * The file's buffer is held onto until every class has been read.
+ *
+ * @author Chocohead
+ */
+public final class LazyTinyMappings implements ExtendedMappings {
+	private final class LazyClass implements ClassEntry {
+		final String[] names;
+		final int start, end;
+		private volatile ExtendedMappings members;
+
+		LazyClass(String[] names, int start, int end) {
+			this.names = names;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public String get(String namespace) {
+			Integer index = namespacesToIds.get(namespace);
+			return index != null ? names[index] : null;
+		}
+
+		@Override
+		public String get(int namespace) {
+			return names[namespace];
+		}
+
+		LazyTinyMappings owner() {
+			return LazyTinyMappings.this;
+		}
+
+		ExtendedMappings getMembers() {
+			ExtendedMappings out = members;
+
+			if (out == null) {
+				synchronized (LazyTinyMappings.this) {//The deduplicator isn't safe to share between threads
+					out = members;
+
+					if (out == null) {
+						TinyV2VisitorBridge visitor = new TinyV2VisitorBridge(deduplicator, true, true, true);
+						visitor.visitNamespaces(namespaces);
+
+						try {
+							TinyV2Visitor.readClasses(TinyV2Visitor.slice(classes, start, end), namespaces.length, escapedNames, visitor);
+						} catch (IOException e) {
+							throw new UncheckedIOException("Error reading members of " + names[0], e);
+						}
+
+						members = out = visitor.getMappings(getRemappers());
+						if (++classesRead == classEntries.size()) classes = null; //Nothing left to read
+					}
+				}
+			}
+
+			return out;
+		}
+	}
+
+	private final String[] namespaces;
+	private final Map<String, Integer> namespacesToIds = new HashMap<>();
+	private final boolean escapedNames;
+	private final MappedStringDeduplicator deduplicator;
+	private final List<LazyClass> classEntries = new ArrayList<>();
+	private final Map<String, LazyClass> firstNamespaceClassEntries = new HashMap<>();
+	private ByteBuffer classes;
+	private int classesRead;
+	private UnaryOperator<String>[] remappers;
+	private ExtendedMappings everything;
+	private final MappingsIndex index = new MappingsIndex(this);
+
+	LazyTinyMappings(String firstLine, ByteOffsetReader reader, MappedStringDeduplicator deduplicator) throws IOException {
+		this.deduplicator = deduplicator;
+
+		class Header implements MappingsVisitor {
+			String[] namespaces;
+			boolean escapedNames;
+
+			@Override
+			public void visitVersion(int major, int minor) {
+			}
+
+			@Override
+			public void visitNamespaces(String... namespaces) {
+				this.namespaces = namespaces;
+			}
+
+			@Override
+			public void visitProperty(String name) {
+				if (TinyV2Visitor.isEscapedNamesProperty(name)) escapedNames = true;
+			}
+
+			@Override
+			public void visitProperty(String name, String value) {
+			}
+
+			@Override
+			public ClassVisitor visitClass(long offset, String[] names) {
+				throw new UnsupportedOperationException("Only the header should be read");
+			}
+		}
+		Header header = new Header();
+
+		TinyLine line = TinyV2Visitor.readMetadata(firstLine, reader, header);
+		namespaces = header.namespaces;
+		escapedNames = header.escapedNames;
+		for (int i = 0; i < namespaces.length; i++) {
+			namespacesToIds.put(namespaces[i], i);
+		}
+
+		if (line == null) return; //No classes to read
+		classes = reader.rest();
+		if (classes == null) throw new IllegalArgumentException("Can only lazily read buffered input");
+		long base = reader.lineStart();
+
+		//Only class lines are split up, everything else is skipped over until asked for
+		TinyColumns columns = new TinyColumns(escapedNames);
+		String[] names = null;
+		int start = 0;
+
+		for (; line != null; line = reader.nextLine()) {
+			if (line.length() > 1 && line.charAt(0) == 'c' && line.charAt(1) == '\t') {
+				int offset = (int) (reader.lineStart() - base);
+				if (names != null) addClass(names, start, offset);
+
+				TinyColumns parts = columns.split(line, 2);
+				if (parts.size() != namespaces.length) {
+					throw new IOException("Invalid class declaration: \"" + line + '"');
+				}
+
+				names = parts.toArray(0);
+				start = offset;
+			}
+		}
+
+		if (names != null) addClass(names, start, classes.limit());
+		((ArrayList<LazyClass>) classEntries).trimToSize();
+	}
+
+	private void addClass(String[] names, int start, int end) {
+		for (int i = 0; i < names.length; i++) {
+			names[i] = deduplicator.deduplicate(Category.CLASS_NAME, names[i]);
+		}
+
+		LazyClass entry = new LazyClass(names, start, end);
+		classEntries.add(entry);
+		firstNamespaceClassEntries.put(names[0], entry);
+	}
+
+	UnaryOperator<String>[] getRemappers() {
+		assert Thread.holdsLock(this);
+
+		if (remappers == null) {
+			remappers = TinyV2VisitorBridge.createRemappers(namespaces.length, () -> classEntries.stream().map(entry -> entry.names).iterator());
+		}
+
+		return remappers;
+	}
+
+	/**
+	 * Finds the class with the given name in the first namespace.
+	 *
+	 * @param name The name of the class in the first namespace
+	 *
+	 * @return The class with the given name, or null if there isn't one
+	 */
+	public ClassEntry getClassEntry(String name) {
+		return firstNamespaceClassEntries.get(name);
+	}
+
+	/**
+	 * Gets the members of the given class, reading them from the file if they have
+	 * not been already. The returned mappings only contain the given class.
+	 *
+	 * @param entry A class from {@link #getClassEntries()}
+	 *
+	 * @return The fields, methods, parameters, locals and comments of the class
+	 *
+	 * @throws IllegalArgumentException If the given class isn't from these mappings
+	 * @throws UncheckedIOException If the class's members cannot be read
+	 */
+	public ExtendedMappings getMembers(ClassEntry entry) {
+		if (!(entry instanceof LazyClass) || ((LazyClass) entry).owner() != this) {
+			throw new IllegalArgumentException("Class not from these mappings: " + entry);
+		}
+
+		return ((LazyClass) entry).getMembers();
+	}
+
+	private synchronized ExtendedMappings getEverything() {
+		if (everything == null) {
+			List<FieldEntry> fields = new ArrayList<>();
+			List<MethodEntry> methods = new ArrayList<>();
+			List<MethodParameterEntry> parameters = new ArrayList<>();
+			List<LocalVariableEntry> locals = new ArrayList<>();
+			List<CommentEntry.Class> classComments = new ArrayList<>();
+			List<CommentEntry.Field> fieldComments = new ArrayList<>();
+			List<CommentEntry.Method> methodComments = new ArrayList<>();
+			List<CommentEntry.Parameter> parameterComments = new ArrayList<>();
+			List<CommentEntry.LocalVariableComment> localComments = new ArrayList<>();
+
+			for (LazyClass entry : classEntries) {
+				ExtendedMappings members = entry.getMembers();
+
+				fields.addAll(members.getFieldEntries());
+				methods.addAll(members.getMethodEntries());
+				parameters.addAll(members.getMethodParameterEntries());
+				locals.addAll(members.getLocalVariableEntries());
+
+				Comments comments = members.getComments();
+				classComments.addAll(comments.getClassComments());
+				fieldComments.addAll(comments.getFieldComments());
+				methodComments.addAll(comments.getMethodComments());
+				parameterComments.addAll(comments.getMethodParameterComments());
+				localComments.addAll(comments.getLocalVariableComments());
+			}
+
+			Comments comments = classComments.isEmpty() && fieldComments.isEmpty() && methodComments.isEmpty() && parameterComments.isEmpty() && localComments.isEmpty() ?
+					Comments.empty() : new CommentsImpl(classComments, fieldComments, methodComments, parameterComments, localComments);
+			everything = new Everything(fields, methods, parameters, locals, comments);
+		}
+
+		return everything;
+	}
+
+	private final class Everything implements ExtendedMappings {
+		private final Collection<FieldEntry> fields;
+		private final Collection<MethodEntry> methods;
+		private final Collection<MethodParameterEntry> parameters;
+		private final Collection<LocalVariableEntry> locals;
+		private final Comments comments;
+
+		Everything(List<FieldEntry> fields, List<MethodEntry> methods, List<MethodParameterEntry> parameters, List<LocalVariableEntry> locals, Comments comments) {
+			this.fields = fields.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(fields);
+			this.methods = methods.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(methods);
+			this.parameters = parameters.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(parameters);
+			this.locals = locals.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(locals);
+			this.comments = comments;
+		}
+
+		@Override
+		public Collection<String> getNamespaces() {
+			return LazyTinyMappings.this.getNamespaces();
+		}
+
+		@Override
+		public int namespaceId(String namespace) {
+			return LazyTinyMappings.this.namespaceId(namespace);
+		}
+
+		@Override
+		public ClassEntry getClass(String namespace, String name) {
+			return LazyTinyMappings.this.getClass(namespace, name);
+		}
+
+		@Override
+		public FieldEntry getField(String namespace, String owner, String name, String desc) {
+			return LazyTinyMappings.this.getField(namespace, owner, name, desc);
+		}
+
+		@Override
+		public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+			return LazyTinyMappings.this.getMethod(namespace, owner, name, desc);
+		}
+
+		@Override
+		public Collection<? extends ClassEntry> getClassEntries() {
+			return LazyTinyMappings.this.getClassEntries();
+		}
+
+		@Override
+		public Collection<FieldEntry> getFieldEntries() {
+			return fields;
+		}
+
+		@Override
+		public Collection<MethodEntry> getMethodEntries() {
+			return methods;
+		}
+
+		@Override
+		public Collection<MethodParameterEntry> getMethodParameterEntries() {
+			return parameters;
+		}
+
+		@Override
+		public Collection<LocalVariableEntry> getLocalVariableEntries() {
+			return locals;
+		}
+
+		@Override
+		public Comments getComments() {
+			return comments;
+		}
+	}
+
+	@Override
+	public Collection<String> getNamespaces() {
+		return Collections.unmodifiableList(Arrays.asList(namespaces));
+	}
+
+	@Override
+	public int namespaceId(String namespace) {
+		return namespacesToIds.getOrDefault(namespace, -1);
+	}
+
+	@Override
+	public ClassEntry getClass(String namespace, String name) {
+		return index.getClass(namespace, name);
+	}
+
+	@Override
+	public FieldEntry getField(String namespace, String owner, String name, String desc) {
+		return index.getField(namespace, owner, name, desc);
+	}
+
+	@Override
+	public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+		return index.getMethod(namespace, owner, name, desc);
+	}
+
+	@Override
+	public Collection<? extends ClassEntry> getClassEntries() {
+		return Collections.unmodifiableList(classEntries);
+	}
+
+	@Override
+	public Collection<? extends FieldEntry> getFieldEntries() {
+		return getEverything().getFieldEntries();
+	}
+
+	@Override
+	public Collection<? extends MethodEntry> getMethodEntries() {
+		return getEverything().getMethodEntries();
+	}
+
+	@Override
+	public Collection<? extends MethodParameterEntry> getMethodParameterEntries() {
+		return getEverything().getMethodParameterEntries();
+	}
+
+	@Override
+	public Collection<? extends LocalVariableEntry> getLocalVariableEntries() {
+		return getEverything().getLocalVariableEntries();
+	}
+
+	@Override
+	public Comments getComments() {
+		return getEverything().getComments();
+	}
+}
@@ -30,6 +30,15 @@ interface MappedStringDeduplicator {
 
     String deduplicate(Category category, String string);
 
+    /**
+     * Deduplicates the given characters, which might only be valid until the call
+     * returns. Implementations which can should avoid turning the sequence into a
+     * {@link String} if they have seen it before.
+     */
+    default String deduplicate(Category category, CharSequence sequence) {
+        return deduplicate(category, sequence != null ? sequence.toString() : null);
+    }
+
     MappedStringDeduplicator EMPTY = (category, string) -> string;
 
     class MapBased implements MappedStringDeduplicator {
@@ -53,4 +62,138 @@ interface MappedStringDeduplicator {
             }
         }
     }
+
+    /**
+     * Deduplicates with an open addressing table per {@link Category}, which can be
+     * searched by the characters of a name without needing the name as a
+     * {@link String} first. A name which has been seen before never allocates.
+     */
+    class Interning implements MappedStringDeduplicator {
+        static final class Table {
+            private String[] strings;
+            private int[] hashes;
+            private int size;
+
+            /**
+             * @param capacity The initial size of the table, must be a power of two
+             */
+            Table(int capacity) {
+                strings = new String[capacity];
+                hashes = new int[capacity];
+            }
+
+            static int hash(CharSequence sequence) {
+                if (sequence instanceof String) return sequence.hashCode();
+
+                int hash = 0;
+                for (int i = 0, length = sequence.length(); i < length; i++) {
+                    hash = 31 * hash + sequence.charAt(i);
+                }
+                return hash;
+            }
+
+            private static int spread(int hash) {
+                return hash ^ hash >>> 16;
+            }
+
+            String intern(CharSequence sequence, int hash) {
+                int mask = strings.length - 1;
+
+                for (int slot = spread(hash) & mask; ; slot = slot + 1 & mask) {
+                    String existing = strings[slot];
+
+                    if (existing == null) {
+                        String out = sequence.toString();
+                        strings[slot] = out;
+                        hashes[slot] = hash;
+                        if (++size * 2 > strings.length) grow();
+                        return out;
+                    } else if (hashes[slot] == hash && existing.contentEquals(sequence)) {
+                        return existing;
+                    }
+                }
+            }
+
+            private void grow() {
+                String[] oldStrings = strings;
+                int[] oldHashes = hashes;
+                strings = new String[oldStrings.length * 2];
+                hashes = new int[oldHashes.length * 2];
+                int mask = strings.length - 1;
+
+                for (int i = 0; i < oldStrings.length; i++) {
+                    if (oldStrings[i] == null) continue;
+
+                    int slot = spread(oldHashes[i]) & mask;
+                    while (strings[slot] != null) slot = slot + 1 & mask;
+                    strings[slot] = oldStrings[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+
+        private final Table[] tables = new Table[Category.values().length];
+
+        Interning() {
+            for (int i = 0; i < tables.length; i++) {
+                tables[i] = new Table(1024);
+            }
+        }
+
+        @Override
+        public String deduplicate(Category category, String string) {
+            return string != null ? tables[category.ordinal()].intern(string, string.hashCode()) : null;
+        }
+
+        @Override
+        public String deduplicate(Category category, CharSequence sequence) {
+            return sequence != null ? tables[category.ordinal()].intern(sequence, Table.hash(sequence)) : null;
+        }
+    }
+
+    /**
+     * A thread safe version of {@link Interning}, which splits each {@link Category}
+     * into several tables chosen by hash, each with their own lock. Threads only
+     * contend when deduplicating names which land in the same table.
+     */
+    class Concurrent implements MappedStringDeduplicator {
+        private final Interning.Table[][] tables = new Interning.Table[Category.values().length][];
+        private final int stripeShift;
+
+        Concurrent() {
+            this(Runtime.getRuntime().availableProcessors() * 4);
+        }
+
+        Concurrent(int stripes) {
+            int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(stripes - 1)); //Round up to a power of two, at least 2
+            stripeShift = 32 - bits;
+
+            for (int i = 0; i < tables.length; i++) {
+                tables[i] = new Interning.Table[1 << bits];
+
+                for (int j = 0; j < tables[i].length; j++) {
+                    tables[i][j] = new Interning.Table(64); //Each table only gets a fraction of the names
+                }
+            }
+        }
+
+        private String intern(Category category, CharSequence sequence, int hash) {
+            //Use the top bits to pick the table, as the bottom bits pick the slot within the table
+            Interning.Table table = tables[category.ordinal()][hash * 0x9E3779B9 >>> stripeShift];
+
+            synchronized (table) {
+                return table.intern(sequence, hash);
+            }
+        }
+
+        @Override
+        public String deduplicate(Category category, String string) {
+            return string != null ? intern(category, string, string.hashCode()) : null;
+        }
+
+        @Override
+        public String deduplicate(Category category, CharSequence sequence) {
+            return sequence != null ? intern(category, sequence, Interning.Table.hash(sequence)) : null;
+        }
+    }
 }
@@ -21,7 +21,73 @@ import java.util.Collection;
 public interface Mappings {
 	Collection<String> getNamespaces();
 
+	/**
+	 * Resolves the given namespace to an id which can be passed to the {@code get(int)}
+	 * method of the entries from these mappings, avoiding looking the namespace up
+	 * again on every call. Ids are only valid for entries from the same mappings.
+	 *
+	 * @param namespace The name of the namespace
+	 *
+	 * @return The id of the namespace, or {@code -1} if the mappings don't have it
+	 */
+	default int namespaceId(String namespace) {
+		int id = 0;
+
+		for (String name : getNamespaces()) {
+			if (name.equals(namespace)) return id;
+			id++;
+		}
+
+		return -1;
+	}
+
 	Collection<? extends ClassEntry> getClassEntries();
 	Collection<? extends FieldEntry> getFieldEntries();
 	Collection<? extends MethodEntry> getMethodEntries();
+
+	/**
+	 * Finds the class with the given name in the given namespace.
+	 *
+	 * <p>
+	 * The default implementation searches through every class, the mappings in this
+	 * library instead build an index for each namespace the first time it is used.
+	 *
+	 * @param namespace The namespace the name is in
+	 * @param name The name of the class
+	 *
+	 * @return The class with the given name, or {@code null} if there isn't one
+	 */
+	default ClassEntry getClass(String namespace, String name) {
+		for (ClassEntry entry : getClassEntries()) {
+			if (name.equals(entry.get(namespace))) return entry;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Finds the field with the given owner, name and descriptor in the given namespace.
+	 *
+	 * @see #getClass(String, String)
+	 */
+	default FieldEntry getField(String namespace, String owner, String name, String desc) {
+		for (FieldEntry entry : getFieldEntries()) {
+			if (MappingsIndex.matches(entry.get(namespace), owner, name, desc)) return entry;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Finds the method with the given owner, name and descriptor in the given namespace.
+	 *
+	 * @see #getClass(String, String)
+	 */
+	default MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+		for (MethodEntry entry : getMethodEntries()) {
+			if (MappingsIndex.matches(entry.get(namespace), owner, name, desc)) return entry;
+		}
+
+		return null;
+	}
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An opt-in on-disk cache of parsed mappings, keyed by a hash of the mapping file's
+ * contents. Parsed mappings are stored as {@link MappingsSnapshot snapshots} so
+ * later loads of the same file skip parsing entirely.
+ *
+ * <p>
+ * The cache directory can be shared between several JVMs at once. Entries are
+ * written to a temporary file before being atomically moved into place, so a
+ * partially written entry is never read. If the directory doesn't support atomic
+ * moves, nothing is cached. Entries which fail to load are deleted and the file
+ * parsed again. Once the cache grows past its maximum size the least
+ * recently used entries are removed.
+ *
+ * @author Chocohead
+ */
+public final class MappingsCache {
+	private static final String SUFFIX = ".snapshot";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final long STALE_TEMP_AGE = TimeUnit.HOURS.toMillis(1);
+	private final Path directory;
+	private final long maxSize;
+
+	/**
+	 * Creates a cache in the given directory, which is created if needed.
+	 *
+	 * @param directory The directory to store cached mappings in
+	 * @param maxSize The number of bytes the cache is allowed to use
+	 *
+	 * @throws IOException If the directory cannot be created
+	 */
+	public MappingsCache(Path directory, long maxSize) throws IOException {
+		if (maxSize < 0) throw new IllegalArgumentException("Negative maximum size: " + maxSize);
+
+		this.directory = Files.createDirectories(directory);
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Reads the given file as {@link MappingsProvider#readTinyMappings(Path)} would,
+	 * using the cached copy if the file has been read before.
+	 */
+	public Mappings readTinyMappings(Path file) throws IOException {
+		return read(file, false);
+	}
+
+	/**
+	 * Reads the given file as {@link MappingsProvider#readFullTinyMappings(Path, boolean)}
+	 * would, using the cached copy if the file has been read before.
+	 */
+	public ExtendedMappings readFullTinyMappings(Path file) throws IOException {
+		return read(file, true);
+	}
+
+	private ExtendedMappings read(Path file, boolean full) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			//Hash the file as it is on disk, as compressed input is only inflated as it is parsed
+			ByteBuffer contents = ArchiveInputs.map(channel);
+
+			Path entry = directory.resolve(hash(contents) + (full ? "-full-v" : "-short-v") + MappingsSnapshot.VERSION + SUFFIX);
+			ExtendedMappings out = load(entry);
+			if (out != null) return out;
+
+			Mappings mappings;
+			try (ByteOffsetReader reader = ArchiveInputs.open(contents)) {
+				mappings = full ? MappingsProvider.readFullTinyMappings(reader, true, null) : MappingsProvider.readTinyMappings(reader, true, null);
+			}
+			store(entry, mappings);
+
+			return mappings instanceof ExtendedMappings ? (ExtendedMappings) mappings : ExtendedMappings.wrap(mappings);
+		}
+	}
+
+	private static String hash(ByteBuffer contents) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Missing SHA-256 support?", e);
+		}
+
+		digest.update(contents.duplicate());
+		byte[] hash = digest.digest();
+
+		StringBuilder out = new StringBuilder(hash.length * 2);
+		for (byte b : hash) {
+			out.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return out.toString();
+	}
+
+	private static ExtendedMappings load(Path entry) {
+		try {
+			ExtendedMappings out = MappingsSnapshot.read(entry);
+
+			try {//Mark the entry as recently used so it isn't evicted first
+				Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+			} catch (IOException e) {
+				//Not the end of the world if it is
+			}
+
+			return out;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			delete(entry); //Corrupted entry, remove it so it can be written again
+			return null;
+		}
+	}
+
+	private void store(Path entry, Mappings mappings) throws IOException {
+		Path temp = Files.createTempFile(directory, entry.getFileName().toString(), TEMP_SUFFIX);
+
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				MappingsSnapshot.write(mappings, out);
+			}
+
+			Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			//Moving any other way could let another JVM read the entry half written, so don't cache at all
+		} catch (IOException e) {
+			//Another JVM might have beaten us to it, either way the mappings are still fine to return
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		evict();
+	}
+
+	/**
+	 * Removes the least recently used entries until the cache is within its maximum
+	 * size, along with any temporary files which look to have been abandoned.
+	 *
+	 * @throws IOException If there is a problem listing the cache's contents
+	 */
+	public void evict() throws IOException {
+		final class Entry {
+			final Path file;
+			final long size, lastUsed;
+
+			Entry(Path file, BasicFileAttributes attributes) {
+				this.file = file;
+				size = attributes.size();
+				lastUsed = attributes.lastModifiedTime().toMillis();
+			}
+		}
+		List<Entry> entries = new ArrayList<>();
+		long size = 0;
+		long now = System.currentTimeMillis();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*{" + SUFFIX + ',' + TEMP_SUFFIX + '}')) {
+			for (Path file : stream) {
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				} catch (NoSuchFileException e) {
+					continue; //Removed whilst listing
+				}
+
+				if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+					if (now - attributes.lastModifiedTime().toMillis() > STALE_TEMP_AGE) delete(file);
+				} else {
+					entries.add(new Entry(file, attributes));
+					size += attributes.size();
+				}
+			}
+		}
+
+		if (size > maxSize) {
+			entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+
+			for (Entry entry : entries) {
+				if (delete(entry.file) && (size -= entry.size) <= maxSize) break;
+			}
+		}
+	}
+
+	/**
+	 * Removes every entry from the cache.
+	 *
+	 * @throws IOException If there is a problem listing the cache's contents
+	 */
+	public void clear() throws IOException {
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, '*' + SUFFIX)) {
+			for (Path file : stream) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	private static boolean delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+			return true;
+		} catch (IOException e) {
+			return false; //Probably still in use by another JVM, can try again next time
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Lookups of the entries of some {@link Mappings} by name in a given namespace.
+ * The tables for each namespace are only built the first time the namespace is
+ * looked up in, after which each lookup is a hash and (usually) a single probe.
+ *
+ * <p>
+ * Safe to be used from multiple threads at once, although the mappings' entries
+ * should not change after the index is first used.
+ *
+ * @author Chocohead
+ */
+final class MappingsIndex {
+	/**
+	 * An open addressing hash table of the rows of something, which only stores the
+	 * row numbers and their hashes rather than keys. Matching a row against a key is
+	 * left to whoever is doing the lookup.
+	 */
+	static final class Table {
+		/** The row in each slot plus one, so empty slots are {@code 0} */
+		private final int[] slots;
+		private final int[] hashes;
+		private final int mask;
+
+		/**
+		 * Creates an empty table with enough room for the given number of rows
+		 */
+		Table(int rows) {
+			int capacity = Integer.highestOneBit(Math.max(rows * 2 - 1, 1)) << 1;
+			slots = new int[capacity];
+			hashes = new int[capacity];
+			mask = capacity - 1;
+		}
+
+		private static int spread(int hash) {
+			return hash ^ hash >>> 16;
+		}
+
+		/**
+		 * Adds the given row to the table, which must have been made big enough to fit it.
+		 * If multiple rows match a key, the one added first is found.
+		 */
+		void add(int row, int hash) {
+			int slot = spread(hash) & mask;
+			while (slots[slot] != 0) slot = slot + 1 & mask;
+
+			slots[slot] = row + 1;
+			hashes[slot] = hash;
+		}
+
+		/**
+		 * Finds the first row with the given hash which matches.
+		 *
+		 * @param hash The hash of the key being looked for
+		 * @param matches Whether the given row has the key being looked for
+		 *
+		 * @return The matching row, or {@code -1} if none match
+		 */
+		int find(int hash, IntPredicate matches) {
+			for (int slot = spread(hash) & mask, row; (row = slots[slot]) != 0; slot = slot + 1 & mask) {
+				if (hashes[slot] == hash && matches.test(row - 1)) return row - 1;
+			}
+
+			return -1;
+		}
+	}
+
+	static int hash(String owner, String name, String desc) {
+		//Same as EntryTriple#hashCode so the triples can be hashed without making them
+		return Objects.hashCode(owner) * 37 + name.hashCode() * 19 + Objects.hashCode(desc);
+	}
+
+	static boolean matches(EntryTriple triple, String owner, String name, String desc) {
+		return triple != null && name.equals(triple.getName()) && Objects.equals(owner, triple.getOwner()) && Objects.equals(desc, triple.getDesc());
+	}
+
+	private final Mappings mappings;
+	private final ConcurrentMap<String, Table> classTables = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Table> fieldTables = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Table> methodTables = new ConcurrentHashMap<>();
+	private volatile ClassEntry[] classes;
+	private volatile FieldEntry[] fields;
+	private volatile MethodEntry[] methods;
+
+	MappingsIndex(Mappings mappings) {
+		this.mappings = mappings;
+	}
+
+	private ClassEntry[] classes() {
+		ClassEntry[] out = classes;
+		if (out == null) classes = out = mappings.getClassEntries().toArray(new ClassEntry[0]);
+		return out;
+	}
+
+	private FieldEntry[] fields() {
+		FieldEntry[] out = fields;
+		if (out == null) fields = out = mappings.getFieldEntries().toArray(new FieldEntry[0]);
+		return out;
+	}
+
+	private MethodEntry[] methods() {
+		MethodEntry[] out = methods;
+		if (out == null) methods = out = mappings.getMethodEntries().toArray(new MethodEntry[0]);
+		return out;
+	}
+
+	private interface TripleLookup<T> {
+		EntryTriple get(T entry, String namespace);
+	}
+
+	private static <T> Table memberTable(T[] entries, String namespace, TripleLookup<T> lookup) {
+		Table out = new Table(entries.length);
+
+		for (int row = 0; row < entries.length; row++) {
+			EntryTriple triple = lookup.get(entries[row], namespace);
+			if (triple == null || triple.getName() == null) continue;
+
+			out.add(row, hash(triple.getOwner(), triple.getName(), triple.getDesc()));
+		}
+
+		return out;
+	}
+
+	/** @see Mappings#getClass(String, String) */
+	ClassEntry getClass(String namespace, String name) {
+		if (mappings.namespaceId(namespace) < 0) return null;
+		ClassEntry[] classes = classes();
+
+		Table table = classTables.computeIfAbsent(namespace, k -> {
+			Table out = new Table(classes.length);
+
+			for (int row = 0; row < classes.length; row++) {
+				String className = classes[row].get(namespace);
+				if (className != null) out.add(row, className.hashCode());
+			}
+
+			return out;
+		});
+
+		int row = table.find(name.hashCode(), candidate -> name.equals(classes[candidate].get(namespace)));
+		return row >= 0 ? classes[row] : null;
+	}
+
+	/** @see Mappings#getField(String, String, String, String) */
+	FieldEntry getField(String namespace, String owner, String name, String desc) {
+		if (mappings.namespaceId(namespace) < 0) return null;
+		FieldEntry[] fields = fields();
+
+		Table table = fieldTables.computeIfAbsent(namespace, k -> memberTable(fields, namespace, FieldEntry::get));
+		int row = table.find(hash(owner, name, desc), candidate -> matches(fields[candidate].get(namespace), owner, name, desc));
+		return row >= 0 ? fields[row] : null;
+	}
+
+	/** @see Mappings#getMethod(String, String, String, String) */
+	MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+		if (mappings.namespaceId(namespace) < 0) return null;
+		MethodEntry[] methods = methods();
+
+		Table table = methodTables.computeIfAbsent(namespace, k -> memberTable(methods, namespace, MethodEntry::get));
+		int row = table.find(hash(owner, name, desc), candidate -> matches(methods[candidate].get(namespace), owner, name, desc));
+		return row >= 0 ? methods[row] : null;
+	}
+}
@@ -19,8 +19,12 @@ package com.chocohead.mappings;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public final class MappingsProvider {
 	private MappingsProvider() {
@@ -35,39 +39,263 @@ public final class MappingsProvider {
 	}
 
 	public static Mappings readTinyMappings(InputStream stream, boolean saveMemoryUsage) throws IOException {
-		try (OffsetReader reader = new OffsetReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+		return readTinyMappings(new ByteOffsetReader(stream), saveMemoryUsage, null);
+	}
+
+	public static Mappings readTinyMappings(Path file) throws IOException {
+		return readTinyMappings(file, true);
+	}
+
+	public static Mappings readTinyMappings(Path file, boolean saveMemoryUsage) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readTinyMappings(channel, saveMemoryUsage);
+		}
+	}
+
+	/**
+	 * Memory maps the given file and reads it in parallel on the given pool. The
+	 * returned mappings are the same as reading sequentially. Gzipped files are
+	 * inflated but read sequentially.
+	 */
+	public static Mappings readTinyMappings(Path file, boolean saveMemoryUsage, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readTinyMappings(ArchiveInputs.open(channel), saveMemoryUsage, pool);
+		}
+	}
+
+	/**
+	 * Reads the given file, reusing any names already in the given pool rather than
+	 * holding them again. Any names which are not in the pool are added to it.
+	 */
+	public static Mappings readTinyMappings(Path file, SharedStringPool strings) throws IOException {
+		return readTinyMappings(file, strings, null);
+	}
+
+	/**
+	 * Memory maps the given file and reads it in parallel on the given pool, reusing
+	 * any names already in the given string pool. Passing a {@code null} pool reads
+	 * the file sequentially.
+	 */
+	public static Mappings readTinyMappings(Path file, SharedStringPool strings, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readTinyMappings(ArchiveInputs.open(channel), true, strings, pool);
+		}
+	}
+
+	/**
+	 * Memory maps the remainder of the given channel from its current position and
+	 * reads the mappings directly from that, inflating it first if it is gzipped.
+	 * The channel is left open afterwards.
+	 */
+	public static Mappings readTinyMappings(FileChannel channel, boolean saveMemoryUsage) throws IOException {
+		return readTinyMappings(ArchiveInputs.open(channel), saveMemoryUsage, null);
+	}
+
+	/**
+	 * Reads the mappings from the given entry of a zip or jar file, such as
+	 * {@code mappings/mappings.tiny}. Stored entries are read straight from a memory
+	 * mapping of the file, deflated ones are inflated straight into the read buffer.
+	 */
+	public static Mappings readTinyMappings(Path zip, String entry, boolean saveMemoryUsage) throws IOException {
+		try (FileChannel channel = FileChannel.open(zip, StandardOpenOption.READ)) {
+			return readTinyMappings(ArchiveInputs.openEntry(channel, entry), saveMemoryUsage, null);
+		}
+	}
+
+	/**
+	 * Reads the given file in the background, parsing it on the given executor once
+	 * it has been read. Cancelling the returned future stops the reading or parsing.
+	 * Problems reading the mappings complete the future exceptionally with the same
+	 * {@link IOException} as reading them directly would throw.
+	 */
+	public static CompletableFuture<Mappings> readTinyMappingsAsync(Path file, boolean saveMemoryUsage, Executor executor) {
+		return AsyncTinyReader.read(file, executor, input -> readTinyMappings(input, saveMemoryUsage, null));
+	}
+
+	/**
+	 * V1 mappings are deduplicated from multiple threads when read in parallel
+	 */
+	private static MappedStringDeduplicator v1Deduplicator(boolean saveMemoryUsage, SharedStringPool strings, ForkJoinPool pool) {
+		if (strings != null) return strings.deduplicator;
+		if (!saveMemoryUsage) return MappedStringDeduplicator.EMPTY;
+		return pool != null ? new MappedStringDeduplicator.Concurrent() : new MappedStringDeduplicator.Interning();
+	}
+
+	private static MappedStringDeduplicator v2Deduplicator(boolean saveMemoryUsage, SharedStringPool strings) {
+		if (strings != null) return strings.deduplicator;
+		return saveMemoryUsage ? new MappedStringDeduplicator.Interning() : MappedStringDeduplicator.EMPTY;
+	}
+
+	static Mappings readTinyMappings(TinyInput input, boolean saveMemoryUsage, ForkJoinPool pool) throws IOException {
+		return readTinyMappings(input, saveMemoryUsage, null, pool);
+	}
+
+	static Mappings readTinyMappings(TinyInput input, boolean saveMemoryUsage, SharedStringPool strings, ForkJoinPool pool) throws IOException {
+		try (TinyInput reader = input) {
 			String headerLine = reader.readLine();
 
 			if (headerLine == null) {
 				throw new EOFException();
 			} else if (headerLine.startsWith("v1\t")) {
-				return new TinyMappings(headerLine, reader,
-						saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY
+				return new TinyMappings(headerLine, reader, v1Deduplicator(saveMemoryUsage, strings, pool), pool);
+			} else if (headerLine.startsWith("tiny\t2\t")) {
+				return TinyV2VisitorBridge.read(headerLine, reader, v2Deduplicator(saveMemoryUsage, strings), pool);
+			} else {
+				throw new IOException("Invalid mapping version!");
+			}
+		}
+	}
+
+	/**
+	 * Memory maps the given file and reads only the class names from it, leaving the
+	 * rest of each class to be read when it is first needed. Only uncompressed Tiny V2
+	 * files can be read lazily.
+	 */
+	public static LazyTinyMappings readLazyTinyMappings(Path file, boolean saveMemoryUsage) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readLazyTinyMappings(channel, saveMemoryUsage);
+		}
+	}
+
+	/**
+	 * Memory maps the remainder of the given channel from its current position and
+	 * lazily reads the mappings from that. The channel can be closed afterwards.
+	 */
+	public static LazyTinyMappings readLazyTinyMappings(FileChannel channel, boolean saveMemoryUsage) throws IOException {
+		try (ByteOffsetReader reader = ByteOffsetReader.map(channel)) {
+			if (ArchiveInputs.isGzipped(reader.rest())) throw new IOException("Compressed mappings cannot be read lazily!");
+			String headerLine = reader.readLine();
+
+			if (headerLine == null) {
+				throw new EOFException();
+			} else if (headerLine.startsWith("tiny\t2\t")) {
+				return new LazyTinyMappings(headerLine, reader,
+						saveMemoryUsage ? new MappedStringDeduplicator.Interning() : MappedStringDeduplicator.EMPTY
 				);
+			} else {
+				throw new IOException("Only Tiny V2 mappings can be read lazily!");
+			}
+		}
+	}
+
+	/**
+	 * Reads the classes, fields and methods of the given Tiny V2 file into
+	 * {@link ColumnarMappings}, which use far fewer objects than the other mappings.
+	 */
+	public static ColumnarMappings readColumnarTinyMappings(Path file, boolean saveMemoryUsage) throws IOException {
+		return readColumnarTinyMappings(file, saveMemoryUsage, false);
+	}
+
+	/**
+	 * Reads the given Tiny V2 file into {@link ColumnarMappings}, optionally storing
+	 * every name off the heap to be decoded as needed.
+	 */
+	public static ColumnarMappings readColumnarTinyMappings(Path file, boolean saveMemoryUsage, boolean offHeap) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readColumnarTinyMappings(channel, saveMemoryUsage, offHeap);
+		}
+	}
+
+	public static ColumnarMappings readColumnarTinyMappings(FileChannel channel, boolean saveMemoryUsage, boolean offHeap) throws IOException {
+		try (ByteOffsetReader reader = ArchiveInputs.open(channel)) {
+			String headerLine = reader.readLine();
+
+			if (headerLine == null) {
+				throw new EOFException();
 			} else if (headerLine.startsWith("tiny\t2\t")) {
-				return TinyV2VisitorBridge.read(headerLine, reader,
-						saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY
+				return ColumnarMappings.read(headerLine, reader,
+						saveMemoryUsage ? new MappedStringDeduplicator.Interning() : MappedStringDeduplicator.EMPTY, offHeap
 				);
 			} else {
-				throw new IOException("Invalid mapping version!");
+				throw new IOException("Only Tiny V2 mappings can be read into columns!");
 			}
 		}
 	}
 
 	public static ExtendedMappings readFullTinyMappings(InputStream stream, boolean saveMemoryUsage) throws IOException {
-		try (OffsetReader reader = new OffsetReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+		return readFullTinyMappings(new ByteOffsetReader(stream), saveMemoryUsage, null);
+	}
+
+	public static ExtendedMappings readFullTinyMappings(Path file, boolean saveMemoryUsage) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readFullTinyMappings(channel, saveMemoryUsage);
+		}
+	}
+
+	/**
+	 * Memory maps the given file and reads it in parallel on the given pool. The
+	 * returned mappings are the same as reading sequentially. Gzipped files are
+	 * inflated but read sequentially.
+	 */
+	public static ExtendedMappings readFullTinyMappings(Path file, boolean saveMemoryUsage, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readFullTinyMappings(ArchiveInputs.open(channel), saveMemoryUsage, pool);
+		}
+	}
+
+	/**
+	 * Reads the given file, reusing any names already in the given pool rather than
+	 * holding them again. Any names which are not in the pool are added to it.
+	 */
+	public static ExtendedMappings readFullTinyMappings(Path file, SharedStringPool strings) throws IOException {
+		return readFullTinyMappings(file, strings, null);
+	}
+
+	/**
+	 * Memory maps the given file and reads it in parallel on the given pool, reusing
+	 * any names already in the given string pool. Passing a {@code null} pool reads
+	 * the file sequentially.
+	 */
+	public static ExtendedMappings readFullTinyMappings(Path file, SharedStringPool strings, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return readFullTinyMappings(ArchiveInputs.open(channel), true, strings, pool);
+		}
+	}
+
+	/**
+	 * Memory maps the remainder of the given channel from its current position and
+	 * reads the mappings directly from that, inflating it first if it is gzipped.
+	 * The channel is left open afterwards.
+	 */
+	public static ExtendedMappings readFullTinyMappings(FileChannel channel, boolean saveMemoryUsage) throws IOException {
+		return readFullTinyMappings(ArchiveInputs.open(channel), saveMemoryUsage, null);
+	}
+
+	/**
+	 * Reads the mappings from the given entry of a zip or jar file, such as
+	 * {@code mappings/mappings.tiny}. Stored entries are read straight from a memory
+	 * mapping of the file, deflated ones are inflated straight into the read buffer.
+	 */
+	public static ExtendedMappings readFullTinyMappings(Path zip, String entry, boolean saveMemoryUsage) throws IOException {
+		try (FileChannel channel = FileChannel.open(zip, StandardOpenOption.READ)) {
+			return readFullTinyMappings(ArchiveInputs.openEntry(channel, entry), saveMemoryUsage, null);
+		}
+	}
+
+	/**
+	 * Reads the given file in the background, parsing it on the given executor once
+	 * it has been read. Cancelling the returned future stops the reading or parsing.
+	 * Problems reading the mappings complete the future exceptionally with the same
+	 * {@link IOException} as reading them directly would throw.
+	 */
+	public static CompletableFuture<ExtendedMappings> readFullTinyMappingsAsync(Path file, boolean saveMemoryUsage, Executor executor) {
+		return AsyncTinyReader.read(file, executor, input -> readFullTinyMappings(input, saveMemoryUsage, null));
+	}
+
+	static ExtendedMappings readFullTinyMappings(TinyInput input, boolean saveMemoryUsage, ForkJoinPool pool) throws IOException {
+		return readFullTinyMappings(input, saveMemoryUsage, null, pool);
+	}
+
+	static ExtendedMappings readFullTinyMappings(TinyInput input, boolean saveMemoryUsage, SharedStringPool strings, ForkJoinPool pool) throws IOException {
+		try (TinyInput reader = input) {
 			String headerLine = reader.readLine();
 
 			if (headerLine == null) {
 				throw new EOFException();
 			} else if (headerLine.startsWith("v1\t")) {
-				return ExtendedMappings.wrap(new TinyMappings(headerLine, reader,
-						saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY
-				));
+				return ExtendedMappings.wrap(new TinyMappings(headerLine, reader, v1Deduplicator(saveMemoryUsage, strings, pool), pool));
 			} else if (headerLine.startsWith("tiny\t2\t")) {
-				return TinyV2VisitorBridge.fullyRead(headerLine, reader,
-						saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY
-				);
+				return TinyV2VisitorBridge.fullyRead(headerLine, reader, v2Deduplicator(saveMemoryUsage, strings), pool);
 			} else {
 				throw new IOException("Invalid mapping version!");
 			}
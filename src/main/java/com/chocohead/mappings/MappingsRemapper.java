@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+import org.objectweb.asm.commons.Remapper;
+
+import com.chocohead.mappings.MappingsIndex.Table;
+
+/**
+ * A {@link Remapper} which remaps classes, methods and fields from one namespace of
+ * some {@link Mappings} into another. Every lookup goes through tables built when the
+ * remapper is made, so remapping a name never needs to join the owner, name and
+ * descriptor of a member together. Descriptors are remembered once remapped.
+ *
+ * <p>
+ * Without a {@link ClassHierarchy}, members are only looked up on the owner they are
+ * given, so members referred to through a subclass of the class which declares them
+ * are left as they are. With one, members not found on their owner are looked for on
+ * the owner's super class then its interfaces, and so on up the hierarchy until one
+ * is found. Where each member was found (or that it wasn't) is remembered, so each
+ * owner, name and descriptor only has its hierarchy walked once. Names which aren't
+ * in the mappings, or have no name in the target namespace, are left as they are.
+ *
+ * <p>
+ * A plain {@link org.objectweb.asm.commons.ClassRemapper ClassRemapper} leaves the names
+ * of lambdas as they are, so use a {@link LambdaClassRemapper} to remap whole classes.
+ *
+ * <p>
+ * The remapper is a snapshot of the mappings when it was made, and is safe to be used
+ * from multiple threads at once.
+ *
+ * @author Chocohead
+ */
+public class MappingsRemapper extends Remapper {
+	/** The names of the members in the source namespace along with their names in the target namespace */
+	private static final class Members {
+		/** Marks members nothing in their owner's hierarchy declares, as {@link #resolved} can't hold {@code null} */
+		private static final String MISSING = new String();
+
+		/** A member as it is referred to, which might not be the owner which declares it */
+		private static final class Reference {
+			private final String owner, name, desc;
+			private final int hash;
+
+			Reference(String owner, String name, String desc) {
+				this.owner = owner;
+				this.name = name;
+				this.desc = desc;
+				hash = MappingsIndex.hash(owner, name, desc);
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				if (this == obj) return true;
+				if (!(obj instanceof Reference)) return false;
+
+				Reference that = (Reference) obj;
+				return hash == that.hash && owner.equals(that.owner) && name.equals(that.name) && desc.equals(that.desc);
+			}
+
+			@Override
+			public int hashCode() {
+				return hash;
+			}
+		}
+
+		final EntryTriple[] sources;
+		final String[] targets;
+		final Table table;
+		/** The names of members which are referred to through an owner which doesn't declare them, or {@link #MISSING} */
+		private final ConcurrentMap<Reference, String> resolved = new ConcurrentHashMap<>();
+
+		<T> Members(Collection<? extends T> entries, BiFunction<T, String, EntryTriple> getter, String from, String to) {
+			List<EntryTriple> sources = new ArrayList<>(entries.size());
+			List<String> targets = new ArrayList<>(entries.size());
+
+			for (T entry : entries) {
+				EntryTriple source = getter.apply(entry, from), target = getter.apply(entry, to);
+				if (source == null) continue;
+
+				//Members which keep their name are kept too, so they are still found as being declared by their owner
+				sources.add(source);
+				targets.add(target != null ? target.getName() : source.getName());
+			}
+
+			this.sources = sources.toArray(new EntryTriple[0]);
+			this.targets = targets.toArray(new String[0]);
+			table = new Table(this.sources.length);
+
+			for (int row = 0; row < this.sources.length; row++) {
+				EntryTriple source = this.sources[row];
+				table.add(row, MappingsIndex.hash(source.getOwner(), source.getName(), source.getDesc()));
+			}
+		}
+
+		private int find(String owner, String name, String desc) {
+			return table.find(MappingsIndex.hash(owner, name, desc), candidate -> MappingsIndex.matches(sources[candidate], owner, name, desc));
+		}
+
+		String map(String owner, String name, String desc) {
+			int row = find(owner, name, desc);
+			return row >= 0 ? targets[row] : name;
+		}
+
+		String resolve(ClassHierarchy hierarchy, String owner, String name, String desc) {
+			String out = lookup(hierarchy, owner, name, desc);
+			return out != null ? out : name;
+		}
+
+		/** Finds the name of the member from the first class up the owner's hierarchy which declares it, or {@code null} if none do */
+		private String lookup(ClassHierarchy hierarchy, String owner, String name, String desc) {
+			int row = find(owner, name, desc);
+			if (row >= 0) return targets[row]; //Declared by the owner, whether or not it is renamed
+
+			String[] parents = hierarchy.getParents(owner);
+			if (parents == null) return null; //Not from the jar, so there is nothing more to find
+
+			Reference reference = new Reference(owner, name, desc);
+			String out = resolved.get(reference);
+			if (out != null) return out != MISSING ? out : null;
+
+			out = MISSING;
+			for (String parent : parents) {
+				//Going through lookup means the parents remember where the member is too, for any other classes which share them
+				String found = lookup(hierarchy, parent, name, desc);
+
+				if (found != null) {
+					out = found;
+					break;
+				}
+			}
+
+			//Another thread might have got here first, but they will have found the same thing
+			resolved.putIfAbsent(reference, out);
+			return out != MISSING ? out : null;
+		}
+	}
+
+	private final FilteredClassMap<String> classes;
+	private final Members methods, fields;
+	private final ClassHierarchy hierarchy;
+	private final DescriptorRemapper descriptors;
+
+	/**
+	 * Creates a remapper from the given mappings, which only looks for members on the owner they are given.
+	 *
+	 * @param mappings The mappings to remap with
+	 * @param from The namespace to remap names from
+	 * @param to The namespace to remap names into
+	 *
+	 * @throws IllegalArgumentException If the mappings don't have either namespace
+	 */
+	public MappingsRemapper(Mappings mappings, String from, String to) {
+		this(mappings, from, to, null);
+	}
+
+	/**
+	 * Creates a remapper from the given mappings, which looks for members up the given class hierarchy.
+	 *
+	 * @param mappings The mappings to remap with
+	 * @param from The namespace to remap names from
+	 * @param to The namespace to remap names into
+	 * @param hierarchy The hierarchy of the classes being remapped in the {@code from} namespace, or {@code null} to only look for members on the owner they are given
+	 *
+	 * @throws IllegalArgumentException If the mappings don't have either namespace
+	 */
+	public MappingsRemapper(Mappings mappings, String from, String to, ClassHierarchy hierarchy) {
+		if (mappings.namespaceId(from) < 0) throw new IllegalArgumentException("Mappings don't have namespace " + from + ": " + mappings.getNamespaces());
+		if (mappings.namespaceId(to) < 0) throw new IllegalArgumentException("Mappings don't have namespace " + to + ": " + mappings.getNamespaces());
+
+		Collection<? extends ClassEntry> classEntries = mappings.getClassEntries();
+		classes = new FilteredClassMap<>(classEntries.size());
+		for (ClassEntry entry : classEntries) {
+			String source = entry.get(from), target = entry.get(to);
+			if (source != null && target != null) classes.put(source, target);
+		}
+
+		methods = new Members(mappings.getMethodEntries(), MethodEntry::get, from, to);
+		fields = new Members(mappings.getFieldEntries(), FieldEntry::get, from, to);
+		this.hierarchy = hierarchy;
+
+		//The cache needs a remapper which won't send descriptors straight back to the cache
+		descriptors = new DescriptorRemapper(new Remapper() {
+			@Override
+			public String map(String type) {
+				return MappingsRemapper.this.map(type);
+			}
+		});
+	}
+
+	@Override
+	public String map(String internalName) {
+		String out = classes.get(internalName);
+		return out != null ? out : internalName;
+	}
+
+	@Override
+	public String mapDesc(String descriptor) {
+		return descriptors.apply(descriptor);
+	}
+
+	@Override
+	public String mapMethodDesc(String methodDescriptor) {
+		return descriptors.apply(methodDescriptor);
+	}
+
+	@Override
+	public String mapMethodName(String owner, String name, String descriptor) {
+		return hierarchy != null ? methods.resolve(hierarchy, owner, name, descriptor) : methods.map(owner, name, descriptor);
+	}
+
+	@Override
+	public String mapFieldName(String owner, String name, String descriptor) {
+		return hierarchy != null ? fields.resolve(hierarchy, owner, name, descriptor) : fields.map(owner, name, descriptor);
+	}
+}
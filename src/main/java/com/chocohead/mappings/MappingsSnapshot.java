@@ -0,0 +1,617 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.chocohead.mappings.model.CommentEntry;
+import com.chocohead.mappings.model.Comments;
+import com.chocohead.mappings.model.CommentsImpl;
+import com.chocohead.mappings.model.LocalVariable;
+import com.chocohead.mappings.model.LocalVariableEntry;
+import com.chocohead.mappings.model.MethodParameter;
+import com.chocohead.mappings.model.MethodParameterEntry;
+
+/**
+ * A compact binary form of {@link Mappings} which can be loaded without any
+ * tokenising or descriptor remapping.
+ *
+ * <p>
+ * A snapshot starts with a table of every string used, each of which is written
+ * once and then referred to by its index, followed by a similar table for the
+ * owner, name and descriptor of every member. Descriptors are stored already remapped
+ * into each namespace. All numbers are written as unsigned variable length ints,
+ * with string index {@code 0} meaning {@code null}. The layout is:
+ *
+ * <pre>
+ * int magic, byte version, byte flags
+ * strings: count, (length &lt;&lt; 1 | isAscii, UTF-8 bytes)...
+ * triples: count, (owner, name, descriptor)...
+ * namespaces: count, string...
+ * classes: count, (string per namespace)...
+ * fields, methods: count, (triple per namespace)...
+ * if extended:
+ *   parameters: count, (parameter per namespace)...
+ *   locals: count, (local per namespace)...
+ *   class, field, method, parameter, local comments: count, (lines, target)...
+ * </pre>
+ *
+ * where members are referred to by their index in the triple table, which
+ * likewise uses {@code 0} for {@code null}. Missing parameters and locals are
+ * written as a {@code null} method alone.
+ *
+ * @author Chocohead
+ */
+public final class MappingsSnapshot {
+	private static final int MAGIC = 0x544E5953; //TNYS
+	static final byte VERSION = 1;
+	private static final byte EXTENDED = 1;
+
+	private MappingsSnapshot() {
+	}
+
+	private static final class Writer {
+		private final Map<String, Integer> stringIds = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+		private final Map<EntryTriple, Integer> tripleIds = new HashMap<>();
+		private final Buffer triples = new Buffer();
+		private final Buffer body = new Buffer();
+
+		Writer() {
+		}
+
+		void writeInt(int value) {
+			body.writeVarInt(value);
+		}
+
+		private int stringId(String value) {
+			if (value == null) return 0;
+			Integer id = stringIds.get(value);
+
+			if (id == null) {
+				strings.add(value);
+				stringIds.put(value, id = strings.size());
+			}
+
+			return id;
+		}
+
+		void writeString(String value) {
+			body.writeVarInt(stringId(value));
+		}
+
+		void writeTriple(EntryTriple triple) {
+			if (triple == null) {
+				body.writeVarInt(0);
+			} else {
+				Integer id = tripleIds.get(triple);
+
+				if (id == null) {
+					triples.writeVarInt(stringId(triple.getOwner()));
+					triples.writeVarInt(stringId(triple.getName()));
+					triples.writeVarInt(stringId(triple.getDesc()));
+					tripleIds.put(triple, id = tripleIds.size() + 1);
+				}
+
+				body.writeVarInt(id);
+			}
+		}
+
+		void writeParameter(MethodParameter parameter) {
+			if (parameter == null) {
+				writeTriple(null);
+			} else {
+				writeTriple(parameter.getMethod());
+				writeString(parameter.getName());
+				writeInt(parameter.getLocalVariableIndex());
+			}
+		}
+
+		void writeLocal(LocalVariable local) {
+			if (local == null) {
+				writeTriple(null);
+			} else {
+				writeTriple(local.getMethod());
+				writeString(local.getName());
+				writeInt(local.getLocalVariableIndex());
+				writeInt(local.getLocalVariableStartOffset());
+				writeInt(local.getLocalVariableTableIndex());
+			}
+		}
+
+		void writeComments(CommentEntry comment) {
+			writeInt(comment.getComments().size());
+
+			for (String line : comment.getComments()) {
+				writeString(line);
+			}
+		}
+
+		void writeTo(OutputStream out, boolean extended) throws IOException {
+			Buffer header = new Buffer();
+			header.write(MAGIC >>> 24);
+			header.write(MAGIC >>> 16);
+			header.write(MAGIC >>> 8);
+			header.write(MAGIC);
+			header.write(VERSION);
+			header.write(extended ? EXTENDED : 0);
+
+			header.writeVarInt(strings.size());
+			for (String string : strings) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				header.writeVarInt(bytes.length << 1 | (bytes.length == string.length() ? 1 : 0));
+				header.write(bytes);
+			}
+
+			header.writeVarInt(tripleIds.size());
+			header.writeTo(out);
+			triples.writeTo(out);
+			body.writeTo(out);
+		}
+	}
+
+	private static final class Buffer extends ByteArrayOutputStream {
+		Buffer() {
+			super(1 << 16);
+		}
+
+		void writeVarInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				write(value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+
+			write(value);
+		}
+
+		@Override
+		public void write(byte[] b) {
+			write(b, 0, b.length);
+		}
+	}
+
+	/**
+	 * Writes the given mappings to the given file as a snapshot, replacing the file
+	 * if it already exists.
+	 *
+	 * @see #write(Mappings, OutputStream)
+	 */
+	public static void write(Mappings mappings, Path file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			write(mappings, out);
+		}
+	}
+
+	/**
+	 * Writes the given mappings to the given stream as a snapshot. If the mappings
+	 * are {@link ExtendedMappings} their parameters, locals and comments are written
+	 * too. The stream is not closed afterwards.
+	 *
+	 * @param mappings The mappings to write
+	 * @param out The stream to write the snapshot to
+	 *
+	 * @throws IOException If there is a problem writing to the stream
+	 */
+	public static void write(Mappings mappings, OutputStream out) throws IOException {
+		String[] namespaces = mappings.getNamespaces().toArray(new String[0]);
+		Writer writer = new Writer();
+
+		writer.writeInt(namespaces.length);
+		for (String namespace : namespaces) {
+			writer.writeString(namespace);
+		}
+
+		writer.writeInt(mappings.getClassEntries().size());
+		for (ClassEntry entry : mappings.getClassEntries()) {
+			for (String namespace : namespaces) {
+				writer.writeString(entry.get(namespace));
+			}
+		}
+
+		writer.writeInt(mappings.getFieldEntries().size());
+		for (FieldEntry entry : mappings.getFieldEntries()) {
+			for (String namespace : namespaces) {
+				writer.writeTriple(entry.get(namespace));
+			}
+		}
+
+		writer.writeInt(mappings.getMethodEntries().size());
+		for (MethodEntry entry : mappings.getMethodEntries()) {
+			for (String namespace : namespaces) {
+				writer.writeTriple(entry.get(namespace));
+			}
+		}
+
+		boolean extended = mappings instanceof ExtendedMappings;
+		if (extended) {
+			ExtendedMappings extendedMappings = (ExtendedMappings) mappings;
+
+			writer.writeInt(extendedMappings.getMethodParameterEntries().size());
+			for (MethodParameterEntry entry : extendedMappings.getMethodParameterEntries()) {
+				for (String namespace : namespaces) {
+					writer.writeParameter(entry.get(namespace));
+				}
+			}
+
+			writer.writeInt(extendedMappings.getLocalVariableEntries().size());
+			for (LocalVariableEntry entry : extendedMappings.getLocalVariableEntries()) {
+				for (String namespace : namespaces) {
+					writer.writeLocal(entry.get(namespace));
+				}
+			}
+
+			Comments comments = extendedMappings.getComments();
+			writer.writeInt(comments.getClassComments().size());
+			for (CommentEntry.Class comment : comments.getClassComments()) {
+				writer.writeComments(comment);
+				writer.writeString(comment.getClassName());
+			}
+
+			writer.writeInt(comments.getFieldComments().size());
+			for (CommentEntry.Field comment : comments.getFieldComments()) {
+				writer.writeComments(comment);
+				writer.writeTriple(comment.getField());
+			}
+
+			writer.writeInt(comments.getMethodComments().size());
+			for (CommentEntry.Method comment : comments.getMethodComments()) {
+				writer.writeComments(comment);
+				writer.writeTriple(comment.getMethod());
+			}
+
+			writer.writeInt(comments.getMethodParameterComments().size());
+			for (CommentEntry.Parameter comment : comments.getMethodParameterComments()) {
+				writer.writeComments(comment);
+				writer.writeParameter(comment.getParameter());
+			}
+
+			writer.writeInt(comments.getLocalVariableComments().size());
+			for (CommentEntry.LocalVariableComment comment : comments.getLocalVariableComments()) {
+				writer.writeComments(comment);
+				writer.writeLocal(comment.getLocalVariable());
+			}
+		}
+
+		writer.writeTo(out, extended);
+	}
+
+	private static final class Reader {
+		private final ByteBuffer in;
+		private final String[] strings;
+		private final EntryTriple[] triples;
+		private byte[] scratch = new byte[256];
+
+		Reader(ByteBuffer in) throws IOException {
+			this.in = in;
+
+			strings = new String[readInt() + 1];
+			for (int i = 1; i < strings.length; i++) {
+				int length = readInt();
+				strings[i] = readString(length >>> 1, (length & 1) != 0);
+			}
+
+			triples = new EntryTriple[readInt() + 1];
+			for (int i = 1; i < triples.length; i++) {
+				triples[i] = new EntryTriple(readString(), readString(), readString());
+			}
+		}
+
+		int readInt() throws IOException {
+			int out = 0;
+
+			for (int shift = 0; shift < 32; shift += 7) {
+				byte b = in.get();
+				out |= (b & 0x7F) << shift;
+				if (b >= 0) return out;
+			}
+
+			throw new IOException("Malformed number in snapshot");
+		}
+
+		private String readString(int length, boolean ascii) throws IOException {
+			if (length > in.remaining()) throw new EOFException("Snapshot ended early");
+			byte[] bytes;
+			int offset;
+
+			if (in.hasArray()) {
+				bytes = in.array();
+				offset = in.arrayOffset() + in.position();
+				in.position(in.position() + length);
+			} else {
+				if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+				in.get(bytes = scratch, offset = 0, length);
+			}
+
+			return new String(bytes, offset, length, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+		}
+
+		String readString() throws IOException {
+			int id = readInt();
+			if (id >= strings.length) throw new IOException("String index out of range: " + id);
+			return strings[id];
+		}
+
+		EntryTriple readTriple() throws IOException {
+			int id = readInt();
+			if (id >= triples.length) throw new IOException("Triple index out of range: " + id);
+			return triples[id];
+		}
+
+		MethodParameter readParameter() throws IOException {
+			EntryTriple method = readTriple();
+			return method == null ? null : new MethodParameter(method, readString(), readInt());
+		}
+
+		LocalVariable readLocal() throws IOException {
+			EntryTriple method = readTriple();
+			return method == null ? null : new LocalVariable(method, readString(), readInt(), readInt(), readInt());
+		}
+
+		List<String> readComments() throws IOException {
+			String[] lines = new String[readInt()];
+
+			for (int i = 0; i < lines.length; i++) {
+				lines[i] = readString();
+			}
+
+			return Arrays.asList(lines);
+		}
+	}
+
+	/**
+	 * Memory maps the given snapshot file and reads it.
+	 *
+	 * @see #read(ByteBuffer)
+	 */
+	public static ExtendedMappings read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + size + " bytes");
+
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	/**
+	 * Reads a snapshot from the given stream, leaving it open afterwards.
+	 *
+	 * @see #read(ByteBuffer)
+	 */
+	public static ExtendedMappings read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+
+		byte[] buffer = new byte[8192];
+		for (int read; (read = in.read(buffer)) >= 0;) {
+			out.write(buffer, 0, read);
+		}
+
+		return read(ByteBuffer.wrap(out.toByteArray()));
+	}
+
+	/**
+	 * Reads the snapshot from the given buffer's position. Snapshots written from
+	 * {@link Mappings} which weren't {@link ExtendedMappings} will have no
+	 * parameters, locals or comments.
+	 *
+	 * @param input The snapshot to read
+	 *
+	 * @return The mappings from the snapshot
+	 *
+	 * @throws IOException If the input is not a valid snapshot
+	 */
+	public static ExtendedMappings read(ByteBuffer input) throws IOException {
+		ByteBuffer in = input.duplicate();
+
+		try {
+			if (in.remaining() < 6 || in.getInt() != MAGIC) throw new IOException("Not a mappings snapshot");
+			byte version = in.get();
+			if (version != VERSION) throw new IOException("Unsupported snapshot version: " + version);
+			boolean extended = (in.get() & EXTENDED) != 0;
+
+			Reader reader = new Reader(in);
+
+			String[] namespaces = new String[reader.readInt()];
+			Map<String, Integer> namespacesToIds = new HashMap<>();
+			for (int i = 0; i < namespaces.length; i++) {
+				namespacesToIds.put(namespaces[i] = reader.readString(), i);
+			}
+			ToIntFunction<String> namespaceIndex = namespacesToIds::get;
+
+			int count = reader.readInt();
+			List<ClassEntry> classes = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				String[] names = new String[namespaces.length];
+
+				for (int j = 0; j < names.length; j++) {
+					names[j] = reader.readString();
+				}
+
+				classes.add(new ArrayEntries.Class(names, namespaceIndex));
+			}
+
+			count = reader.readInt();
+			List<FieldEntry> fields = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				EntryTriple[] triples = readTriples(reader, namespaces.length);
+				fields.add(new ArrayEntries.Member(triples, namespaceIndex));
+			}
+
+			count = reader.readInt();
+			List<MethodEntry> methods = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				EntryTriple[] triples = readTriples(reader, namespaces.length);
+				methods.add(new ArrayEntries.Member(triples, namespaceIndex));
+			}
+
+			if (!extended) {
+				return new SnapshotMappings(namespaces, classes, fields, methods, Collections.emptyList(), Collections.emptyList(), Comments.empty());
+			}
+
+			count = reader.readInt();
+			List<MethodParameterEntry> parameters = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				MethodParameter[] entries = new MethodParameter[namespaces.length];
+
+				for (int j = 0; j < entries.length; j++) {
+					entries[j] = reader.readParameter();
+				}
+
+				parameters.add(new ArrayEntries.Parameter(entries, namespaceIndex));
+			}
+
+			count = reader.readInt();
+			List<LocalVariableEntry> locals = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				LocalVariable[] entries = new LocalVariable[namespaces.length];
+
+				for (int j = 0; j < entries.length; j++) {
+					entries[j] = reader.readLocal();
+				}
+
+				locals.add(new ArrayEntries.Local(entries, namespaceIndex));
+			}
+
+			count = reader.readInt();
+			List<CommentEntry.Class> classComments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				classComments.add(new CommentEntry.Class(reader.readComments(), reader.readString()));
+			}
+
+			count = reader.readInt();
+			List<CommentEntry.Field> fieldComments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				fieldComments.add(new CommentEntry.Field(reader.readComments(), reader.readTriple()));
+			}
+
+			count = reader.readInt();
+			List<CommentEntry.Method> methodComments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				methodComments.add(new CommentEntry.Method(reader.readComments(), reader.readTriple()));
+			}
+
+			count = reader.readInt();
+			List<CommentEntry.Parameter> parameterComments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				parameterComments.add(new CommentEntry.Parameter(reader.readComments(), reader.readParameter()));
+			}
+
+			count = reader.readInt();
+			List<CommentEntry.LocalVariableComment> localComments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				localComments.add(new CommentEntry.LocalVariableComment(reader.readComments(), reader.readLocal()));
+			}
+
+			Comments comments = classComments.isEmpty() && fieldComments.isEmpty() && methodComments.isEmpty() && parameterComments.isEmpty() && localComments.isEmpty() ?
+					Comments.empty() : new CommentsImpl(classComments, fieldComments, methodComments, parameterComments, localComments);
+			return new SnapshotMappings(namespaces, classes, fields, methods, parameters, locals, comments);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new EOFException("Snapshot ended early");
+		}
+	}
+
+	private static EntryTriple[] readTriples(Reader reader, int namespaces) throws IOException {
+		EntryTriple[] out = new EntryTriple[namespaces];
+
+		for (int i = 0; i < namespaces; i++) {
+			out[i] = reader.readTriple();
+		}
+
+		return out;
+	}
+
+	private static final class SnapshotMappings implements ExtendedMappings {
+		private final Collection<String> namespaces;
+		private final Collection<ClassEntry> classEntries;
+		private final Collection<FieldEntry> fieldEntries;
+		private final Collection<MethodEntry> methodEntries;
+		private final Collection<MethodParameterEntry> methodParameterEntries;
+		private final Collection<LocalVariableEntry> localVariableEntries;
+		private final Comments comments;
+		private final MappingsIndex index = new MappingsIndex(this);
+
+		SnapshotMappings(String[] namespaces, Collection<ClassEntry> classEntries, Collection<FieldEntry> fieldEntries, Collection<MethodEntry> methodEntries,
+				Collection<MethodParameterEntry> methodParameterEntries, Collection<LocalVariableEntry> localVariableEntries, Comments comments) {
+			this.namespaces = Collections.unmodifiableList(Arrays.asList(namespaces));
+			this.classEntries = classEntries;
+			this.fieldEntries = fieldEntries;
+			this.methodEntries = methodEntries;
+			this.methodParameterEntries = methodParameterEntries;
+			this.localVariableEntries = localVariableEntries;
+			this.comments = comments;
+		}
+
+		@Override
+		public Collection<String> getNamespaces() {
+			return namespaces;
+		}
+
+		@Override
+		public ClassEntry getClass(String namespace, String name) {
+			return index.getClass(namespace, name);
+		}
+
+		@Override
+		public FieldEntry getField(String namespace, String owner, String name, String desc) {
+			return index.getField(namespace, owner, name, desc);
+		}
+
+		@Override
+		public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+			return index.getMethod(namespace, owner, name, desc);
+		}
+
+		@Override
+		public Collection<ClassEntry> getClassEntries() {
+			return classEntries;
+		}
+
+		@Override
+		public Collection<FieldEntry> getFieldEntries() {
+			return fieldEntries;
+		}
+
+		@Override
+		public Collection<MethodEntry> getMethodEntries() {
+			return methodEntries;
+		}
+
+		@Override
+		public Collection<MethodParameterEntry> getMethodParameterEntries() {
+			return methodParameterEntries;
+		}
+
+		@Override
+		public Collection<LocalVariableEntry> getLocalVariableEntries() {
+			return localVariableEntries;
+		}
+
+		@Override
+		public Comments getComments() {
+			return comments;
+		}
+	}
+}
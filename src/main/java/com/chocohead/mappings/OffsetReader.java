@@ -8,7 +8,6 @@
 package com.chocohead.mappings;
 
 import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
 
@@ -20,9 +19,10 @@ import java.io.Reader;
  *
  * @author Chocohead
  */
-final class OffsetReader implements Closeable {
+final class OffsetReader implements TinyInput {
 	private final Reader in;
 	private final char buffer[];
+	private final TinyLine.Decoded line = new TinyLine.Decoded();
 	private long lineStart, nextLine = -1;
 	private int limit, position;
 	private boolean skipLF;
@@ -72,6 +72,7 @@ final class OffsetReader implements Closeable {
 	 *
 	 * @see BufferedReader#readLine()
 	 */
+	@Override
 	public String readLine() throws IOException {
 		StringBuffer line = null;
 
@@ -122,6 +123,12 @@ final class OffsetReader implements Closeable {
 		}
 	}
 
+	@Override
+	public TinyLine nextLine() throws IOException {
+		String line = readLine();
+		return line != null ? this.line.set(line) : null;
+	}
+
 	/**
 	 * The number of characters the last line returned by {@link #readLine()} is
 	 * past from the start of the input reader. Returns 0 if {@link #readLine()} has
@@ -137,6 +144,7 @@ final class OffsetReader implements Closeable {
 	 * @see #lineEnd()
 	 * @see BufferedReader#skip(long)
 	 */
+	@Override
 	public long lineStart() {
 		return lineStart;
 	}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chocohead.mappings.visitor.ClassVisitor;
+import com.chocohead.mappings.visitor.Columns;
+import com.chocohead.mappings.visitor.FieldVisitor;
+import com.chocohead.mappings.visitor.LocalVisitor;
+import com.chocohead.mappings.visitor.MappingsVisitor;
+import com.chocohead.mappings.visitor.MethodVisitor;
+import com.chocohead.mappings.visitor.ParameterVisitor;
+
+/**
+ * Records the classes visited from a section of a mapping file so they can be
+ * replayed to another {@link MappingsVisitor} later, possibly on another thread.
+ *
+ * <p>
+ * Everything in a class is recorded, as which parts would be skipped is only
+ * known once the real visitor is given them. Offsets are recorded shifted by the
+ * given base, so sections of a file can be read independently of one another.
+ *
+ * @author Chocohead
+ */
+final class RecordingVisitor implements MappingsVisitor {
+	private enum Type {
+		CLASS, METHOD, FIELD, PARAMETER, LOCAL_VARIABLE, CLASS_COMMENT, METHOD_COMMENT, FIELD_COMMENT, PARAMETER_COMMENT, LOCAL_VARIABLE_COMMENT;
+	}
+
+	private static final class Event {
+		final Type type;
+		final long offset;
+		final String[] columns;
+		final String comment;
+
+		Event(Type type, long offset, String[] columns) {
+			this.type = type;
+			this.offset = offset;
+			this.columns = columns;
+			comment = null;
+		}
+
+		Event(Type type, String comment) {
+			this.type = type;
+			offset = -1;
+			columns = null;
+			this.comment = comment;
+		}
+	}
+
+	private final long base;
+	private final List<Event> events = new ArrayList<>();
+	private final ClassVisitor classVisitor = new ClassVisitor() {
+		@Override
+		public MethodVisitor visitMethod(long offset, String[] names, String descriptor) {
+			return visitMethod(offset, new ArrayColumns(prepend(descriptor, names)));
+		}
+
+		@Override
+		public MethodVisitor visitMethod(long offset, Columns columns) {
+			record(Type.METHOD, offset, columns);
+			return methodVisitor;
+		}
+
+		@Override
+		public FieldVisitor visitField(long offset, String[] names, String descriptor) {
+			return visitField(offset, new ArrayColumns(prepend(descriptor, names)));
+		}
+
+		@Override
+		public FieldVisitor visitField(long offset, Columns columns) {
+			record(Type.FIELD, offset, columns);
+			return fieldVisitor;
+		}
+
+		@Override
+		public void visitComment(String line) {
+			events.add(new Event(Type.CLASS_COMMENT, line));
+		}
+	};
+	private final MethodVisitor methodVisitor = new MethodVisitor() {
+		@Override
+		public ParameterVisitor visitParameter(long offset, String[] names, int localVariableIndex) {
+			return visitParameter(offset, new ArrayColumns(prepend(Integer.toString(localVariableIndex), names)));
+		}
+
+		@Override
+		public ParameterVisitor visitParameter(long offset, Columns columns) {
+			record(Type.PARAMETER, offset, columns);
+			return parameterVisitor;
+		}
+
+		@Override
+		public LocalVisitor visitLocalVariable(long offset, String[] names, int localVariableIndex, int localVariableStartOffset, int localVariableTableIndex) {
+			String[] columns = new String[names.length + 3];
+			columns[0] = Integer.toString(localVariableIndex);
+			columns[1] = Integer.toString(localVariableStartOffset);
+			columns[2] = Integer.toString(localVariableTableIndex);
+			System.arraycopy(names, 0, columns, 3, names.length);
+			return visitLocalVariable(offset, new ArrayColumns(columns));
+		}
+
+		@Override
+		public LocalVisitor visitLocalVariable(long offset, Columns columns) {
+			record(Type.LOCAL_VARIABLE, offset, columns);
+			return localVisitor;
+		}
+
+		@Override
+		public void visitComment(String line) {
+			events.add(new Event(Type.METHOD_COMMENT, line));
+		}
+	};
+	private final FieldVisitor fieldVisitor = line -> events.add(new Event(Type.FIELD_COMMENT, line));
+	private final ParameterVisitor parameterVisitor = line -> events.add(new Event(Type.PARAMETER_COMMENT, line));
+	private final LocalVisitor localVisitor = line -> events.add(new Event(Type.LOCAL_VARIABLE_COMMENT, line));
+
+	RecordingVisitor(long base) {
+		this.base = base;
+	}
+
+	private static String[] prepend(String first, String[] rest) {
+		String[] out = new String[rest.length + 1];
+		out[0] = first;
+		System.arraycopy(rest, 0, out, 1, rest.length);
+		return out;
+	}
+
+	private void record(Type type, long offset, Columns columns) {
+		events.add(new Event(type, base + offset, columns.toArray(0)));
+	}
+
+	@Override
+	public void visitVersion(int major, int minor) {
+		throw new UnsupportedOperationException("Only classes can be recorded");
+	}
+
+	@Override
+	public void visitNamespaces(String... namespaces) {
+		throw new UnsupportedOperationException("Only classes can be recorded");
+	}
+
+	@Override
+	public void visitProperty(String name) {
+		throw new UnsupportedOperationException("Only classes can be recorded");
+	}
+
+	@Override
+	public void visitProperty(String name, String value) {
+		throw new UnsupportedOperationException("Only classes can be recorded");
+	}
+
+	@Override
+	public ClassVisitor visitClass(long offset, String[] names) {
+		return visitClass(offset, new ArrayColumns(names));
+	}
+
+	@Override
+	public ClassVisitor visitClass(long offset, Columns names) {
+		record(Type.CLASS, offset, names);
+		return classVisitor;
+	}
+
+	/**
+	 * Replays everything recorded so far to the given visitor, in the order it
+	 * was recorded. Children of anything the visitor returns null for are skipped
+	 * just as they would be when reading normally. {@link MappingsVisitor#finish()}
+	 * is not called.
+	 *
+	 * @param visitor The visitor to replay the recorded classes to
+	 */
+	void replay(MappingsVisitor visitor) {
+		ClassVisitor currentClass = null;
+		MethodVisitor currentMethod = null;
+		FieldVisitor currentField = null;
+		ParameterVisitor currentParameter = null;
+		LocalVisitor currentLocal = null;
+
+		for (Event event : events) {
+			switch (event.type) {
+			case CLASS:
+				currentClass = visitor.visitClass(event.offset, new ArrayColumns(event.columns));
+				currentMethod = null;
+				currentField = null;
+				currentParameter = null;
+				currentLocal = null;
+				break;
+
+			case METHOD:
+				currentMethod = currentClass != null ? currentClass.visitMethod(event.offset, new ArrayColumns(event.columns)) : null;
+				currentField = null;
+				currentParameter = null;
+				currentLocal = null;
+				break;
+
+			case FIELD:
+				currentField = currentClass != null ? currentClass.visitField(event.offset, new ArrayColumns(event.columns)) : null;
+				currentMethod = null;
+				currentParameter = null;
+				currentLocal = null;
+				break;
+
+			case PARAMETER:
+				currentParameter = currentMethod != null ? currentMethod.visitParameter(event.offset, new ArrayColumns(event.columns)) : null;
+				currentLocal = null;
+				break;
+
+			case LOCAL_VARIABLE:
+				currentLocal = currentMethod != null ? currentMethod.visitLocalVariable(event.offset, new ArrayColumns(event.columns)) : null;
+				currentParameter = null;
+				break;
+
+			case CLASS_COMMENT:
+				if (currentClass != null) currentClass.visitComment(event.comment);
+				break;
+
+			case METHOD_COMMENT:
+				if (currentMethod != null) currentMethod.visitComment(event.comment);
+				break;
+
+			case FIELD_COMMENT:
+				if (currentField != null) currentField.visitComment(event.comment);
+				break;
+
+			case PARAMETER_COMMENT:
+				if (currentParameter != null) currentParameter.visitComment(event.comment);
+				break;
+
+			case LOCAL_VARIABLE_COMMENT:
+				if (currentLocal != null) currentLocal.visitComment(event.comment);
+				break;
+
+			default:
+				throw new IllegalStateException("Unexpected event type: " + event.type);
+			}
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.chocohead.mappings.MappedStringDeduplicator.Interning;
+
+/**
+ * A pool of names which can be shared between loading several sets of mappings,
+ * such as those for different versions of a game. Names already in the pool from
+ * an earlier load are reused rather than held again, so each extra set of mappings
+ * only adds the names which differ from those already loaded.
+ *
+ * <p>
+ * Names are only weakly held, so once no loaded mappings use a name any more it
+ * will be dropped from the pool. Safe to be used from multiple threads at once.
+ *
+ * @author Chocohead
+ */
+public final class SharedStringPool {
+	private static final class Entry extends WeakReference<String> {
+		final int hash;
+		Entry next;
+
+		Entry(String string, int hash, Entry next, ReferenceQueue<String> queue) {
+			super(string, queue);
+
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	private static final class Stripe {
+		private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+		private Entry[] buckets = new Entry[64];
+		private int size;
+
+		private static int spread(int hash) {
+			return hash ^ hash >>> 16;
+		}
+
+		synchronized String intern(CharSequence sequence, int hash, LongAdder added) {
+			expunge();
+
+			int bucket = spread(hash) & buckets.length - 1;
+			for (Entry entry = buckets[bucket]; entry != null; entry = entry.next) {
+				if (entry.hash != hash) continue;
+
+				String existing = entry.get();
+				if (existing != null && existing.contentEquals(sequence)) return existing;
+			}
+
+			String out = sequence.toString();
+			buckets[bucket] = new Entry(out, hash, buckets[bucket], queue);
+			if (++size * 4 > buckets.length * 3) grow();
+			added.increment();
+			return out;
+		}
+
+		/** Removes the entries whose names have been garbage collected */
+		private void expunge() {
+			for (Reference<? extends String> cleared; (cleared = queue.poll()) != null;) {
+				Entry entry = (Entry) cleared;
+				int bucket = spread(entry.hash) & buckets.length - 1;
+
+				for (Entry previous = null, current = buckets[bucket]; current != null; previous = current, current = current.next) {
+					if (current == entry) {
+						if (previous == null) {
+							buckets[bucket] = current.next;
+						} else {
+							previous.next = current.next;
+						}
+
+						size--;
+						break;
+					}
+				}
+			}
+		}
+
+		private void grow() {
+			Entry[] oldBuckets = buckets;
+			buckets = new Entry[oldBuckets.length * 2];
+			int mask = buckets.length - 1;
+
+			for (Entry entry : oldBuckets) {
+				while (entry != null) {
+					Entry next = entry.next;
+
+					int bucket = spread(entry.hash) & mask;
+					entry.next = buckets[bucket];
+					buckets[bucket] = entry;
+
+					entry = next;
+				}
+			}
+		}
+
+		synchronized int size() {
+			expunge();
+			return size;
+		}
+	}
+
+	private final Stripe[] stripes;
+	private final int stripeShift;
+	private final LongAdder added = new LongAdder();
+	/**
+	 * Names are pooled regardless of their category, as equal names from different
+	 * categories might as well be the same object when they outlive a single load
+	 */
+	final MappedStringDeduplicator deduplicator = new MappedStringDeduplicator() {
+		@Override
+		public String deduplicate(Category category, String string) {
+			return string != null ? intern(string, string.hashCode()) : null;
+		}
+
+		@Override
+		public String deduplicate(Category category, CharSequence sequence) {
+			return sequence != null ? intern(sequence, Interning.Table.hash(sequence)) : null;
+		}
+	};
+
+	public SharedStringPool() {
+		int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Runtime.getRuntime().availableProcessors() * 4 - 1));
+		stripeShift = 32 - bits;
+		stripes = new Stripe[1 << bits];
+
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	private String intern(CharSequence sequence, int hash) {
+		return stripes[hash * 0x9E3779B9 >>> stripeShift].intern(sequence, hash, added);
+	}
+
+	/**
+	 * Counts how many names the pool currently holds. Names which are no longer used
+	 * are only removed once they have been garbage collected.
+	 *
+	 * @return The number of names in the pool
+	 */
+	public int size() {
+		int out = 0;
+
+		for (Stripe stripe : stripes) {
+			out += stripe.size();
+		}
+
+		return out;
+	}
+
+	/**
+	 * Counts every name which has been added to the pool since it was made, including
+	 * those which have since been dropped. The difference either side of loading some
+	 * mappings is how many of their names were not already in the pool.
+	 *
+	 * @return The total number of names added to the pool
+	 */
+	public long added() {
+		return added.sum();
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of strings held once each as UTF-8 in a direct {@link ByteBuffer}, so
+ * they are kept off the heap. Strings are addressed by their offset in the pool
+ * and only decoded when asked for.
+ *
+ * <p>
+ * Each string is stored as a varint of its length in bytes shifted left by one,
+ * with the bottom bit set if the string is pure ASCII, followed by its bytes. ASCII
+ * strings can be compared and hashed without being decoded.
+ *
+ * @author Chocohead
+ */
+final class StringPool {
+	/** The offset used for {@code null} strings */
+	static final int NULL = -1;
+
+	static final class Builder {
+		private final Map<String, Integer> offsets = new HashMap<>();
+		private byte[] bytes = new byte[1 << 16];
+		private int size;
+
+		/**
+		 * Adds the given string to the pool if it is not in it already.
+		 *
+		 * @param string The string to add, may be {@code null}
+		 *
+		 * @return The offset of the string in the pool
+		 */
+		int add(String string) {
+			if (string == null) return NULL;
+
+			Integer offset = offsets.get(string);
+			if (offset == null) {
+				offsets.put(string, offset = size);
+
+				byte[] utf = string.getBytes(StandardCharsets.UTF_8);
+				if (size + utf.length + 5 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + utf.length + 5));
+
+				for (int header = utf.length << 1 | (utf.length == string.length() ? 1 : 0); ; header >>>= 7) {
+					if ((header & ~0x7F) == 0) {
+						bytes[size++] = (byte) header;
+						break;
+					}
+
+					bytes[size++] = (byte) (header & 0x7F | 0x80);
+				}
+
+				System.arraycopy(utf, 0, bytes, size, utf.length);
+				size += utf.length;
+			}
+
+			return offset;
+		}
+
+		StringPool build() {
+			ByteBuffer pool = ByteBuffer.allocateDirect(size);
+			pool.put(bytes, 0, size).flip();
+			return new StringPool(pool);
+		}
+	}
+
+	private final ByteBuffer pool;
+
+	private StringPool(ByteBuffer pool) {
+		this.pool = pool;
+	}
+
+	/** Returns the length of the string at the given offset, shifted left by one with the bottom bit set if it is ASCII */
+	private int header(int offset) {
+		int out = 0;
+
+		for (int shift = 0; ; shift += 7) {
+			byte b = pool.get(offset++);
+			out |= (b & 0x7F) << shift;
+			if (b >= 0) return out;
+		}
+	}
+
+	private static int headerSize(int header) {
+		int out = 1;
+		while ((header >>>= 7) != 0) out++;
+		return out;
+	}
+
+	/**
+	 * Decodes the string at the given offset.
+	 *
+	 * @param offset The offset of the string, as returned from {@link Builder#add(String)}
+	 *
+	 * @return The string at the offset, or {@code null} if the offset is {@link #NULL}
+	 */
+	String get(int offset) {
+		if (offset == NULL) return null;
+
+		int header = header(offset);
+		int start = offset + headerSize(header);
+		byte[] bytes = new byte[header >>> 1];
+
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = pool.get(start + i);
+		}
+
+		return new String(bytes, (header & 1) != 0 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Checks whether the string at the given offset is equal to the given string,
+	 * without decoding it if it is ASCII.
+	 */
+	boolean equals(int offset, String string) {
+		if (offset == NULL || string == null) return offset == NULL && string == null;
+
+		int header = header(offset);
+		if ((header & 1) == 0) return string.equals(get(offset));
+
+		int length = header >>> 1;
+		if (length != string.length()) return false;
+
+		for (int i = 0, start = offset + headerSize(header); i < length; i++) {
+			if (pool.get(start + i) != string.charAt(i)) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the {@link String#hashCode() hash code} of the string at the given offset,
+	 * without decoding it if it is ASCII.
+	 */
+	int hashCode(int offset) {
+		if (offset == NULL) return 0;
+
+		int header = header(offset);
+		if ((header & 1) == 0) return get(offset).hashCode();
+
+		int hash = 0;
+		for (int i = 0, start = offset + headerSize(header), length = header >>> 1; i < length; i++) {
+			hash = 31 * hash + pool.get(start + i);
+		}
+
+		return hash;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.util.Arrays;
+
+import com.chocohead.mappings.visitor.Columns;
+
+/**
+ * Reusable {@link Columns} which only records where each column of a
+ * {@link TinyLine} is, leaving the line itself to be sliced up on demand.
+ *
+ * @author Chocohead
+ */
+final class TinyColumns implements Columns {
+	private final class View implements CharSequence {
+		int start, end;
+
+		View() {
+		}
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) throw new StringIndexOutOfBoundsException(index);
+			return line.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length() || start > end) {
+				throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + length());
+			}
+
+			return line.slice(this.start + start, this.start + end);
+		}
+
+		@Override
+		public String toString() {
+			return line.slice(start, end);
+		}
+	}
+
+	private static final char INDENT = '\t';
+	private final boolean escaped;
+	private TinyLine line;
+	private int size;
+	private int[] starts = new int[8], ends = new int[8];
+	private View[] views = new View[8];
+
+	TinyColumns(boolean escaped) {
+		this.escaped = escaped;
+	}
+
+	TinyColumns split(TinyLine line, int offset) {
+		this.line = line;
+		size = 0;
+
+		int split;
+		while ((split = line.indexOf(INDENT, offset)) >= 0) {
+			add(offset, split);
+			offset = split + 1;
+		}
+		add(offset, line.length());
+
+		return this;
+	}
+
+	private void add(int start, int end) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+			views = Arrays.copyOf(views, size * 2);
+		}
+
+		starts[size] = start;
+		ends[size++] = end;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void check(int column) {
+		if (column < 0 || column >= size) throw new IndexOutOfBoundsException("Column " + column + " out of " + size);
+	}
+
+	@Override
+	public CharSequence get(int column) {
+		check(column);
+
+		int start = starts[column], end = ends[column];
+		if (start == end) return null;
+
+		//Views can only be given out for sections which need no extra decoding
+		int escape;
+		if (!line.isAscii(start, end) || escaped && (escape = line.indexOf('\\', start)) >= 0 && escape < end) {
+			return getString(column);
+		}
+
+		View view = views[column];
+		if (view == null) views[column] = view = new View();
+
+		view.start = start;
+		view.end = end;
+		return view;
+	}
+
+	@Override
+	public String getString(int column) {
+		check(column);
+
+		int start = starts[column], end = ends[column];
+		if (start == end) return null;
+
+		String out = line.slice(start, end);
+		return escaped ? TinyV2Visitor.unescape(out) : out;
+	}
+
+	@Override
+	public int getInt(int column) {
+		check(column);
+
+		int start = starts[column], end = ends[column];
+		boolean negative = start < end && line.charAt(start) == '-';
+		int digits = negative ? end - start - 1 : end - start;
+
+		if (digits <= 0 || digits > 9) {//Empty or (potentially) bigger than an int, let Integer sort it out
+			return Integer.parseInt(line.slice(start, end));
+		}
+
+		int out = 0;
+		for (int i = negative ? start + 1 : start; i < end; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') throw new NumberFormatException("For input string: \"" + line.slice(start, end) + '"');
+			out = out * 10 + (c - '0');
+		}
+
+		return negative ? -out : out;
+	}
+
+	@Override
+	public String[] toArray(int from) {
+		if (from < 0 || from > size) throw new IndexOutOfBoundsException("Column " + from + " out of " + size);
+		String[] out = new String[size - from];
+
+		for (int i = 0; i < out.length; i++) {
+			out[i] = getString(from + i);
+		}
+
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray(0));
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A line by line source of a Tiny file which tracks where each line sits in the
+ * input.
+ *
+ * @author Chocohead
+ */
+interface TinyInput extends Closeable {
+	/**
+	 * Reads the next line of the input as a {@link String}.
+	 *
+	 * @return The next line, or null if the end of the input has been reached
+	 *
+	 * @exception IOException If an I/O error occurs whilst reading
+	 */
+	String readLine() throws IOException;
+
+	/**
+	 * Reads the next line of the input without necessarily decoding it. The
+	 * returned line is only valid until the next call to either this or
+	 * {@link #readLine()}, after which it may be reused.
+	 *
+	 * @return The next line, or null if the end of the input has been reached
+	 *
+	 * @exception IOException If an I/O error occurs whilst reading
+	 */
+	TinyLine nextLine() throws IOException;
+
+	/**
+	 * The position in the input the last line read starts from.
+	 *
+	 * @return How far the start of the last line read is past the start of the
+	 *         input
+	 */
+	long lineStart();
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings;
+
+/**
+ * A view over a single line of a Tiny file, which only makes {@link String}s out
+ * of the parts of the line that are actually asked for.
+ *
+ * <p>
+ * Indices are in whatever units the line was read in. For lines read straight
+ * from UTF-8 input this means a non-ASCII character will span several indices,
+ * none of which will match an ASCII character. As everything the format itself
+ * cares about is ASCII this makes no difference to finding the columns.
+ *
+ * @author Chocohead
+ */
+abstract class TinyLine implements CharSequence {
+	/**
+	 * A line which has already been fully decoded into a {@link String}
+	 */
+	static final class Decoded extends TinyLine {
+		private String line;
+
+		Decoded() {
+		}
+
+		Decoded(String line) {
+			this.line = line;
+		}
+
+		Decoded set(String line) {
+			this.line = line;
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return line.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return line.charAt(index);
+		}
+
+		@Override
+		public int indexOf(char c, int from) {
+			return line.indexOf(c, from);
+		}
+
+		@Override
+		public String slice(int start, int end) {
+			return line.substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return line;
+		}
+	}
+
+	/**
+	 * Finds the first index of the given ASCII character at or after the given
+	 * index in the line.
+	 *
+	 * @param c The character to search for
+	 * @param from The index to start searching from
+	 *
+	 * @return The index of the first occurrence of the character, or -1 if there
+	 *         are none
+	 */
+	public int indexOf(char c, int from) {
+		for (int i = Math.max(from, 0), end = length(); i < end; i++) {
+			if (charAt(i) == c) return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks whether the given section of the line maps one to one onto
+	 * characters, such that {@link #charAt(int)} gives the same result as
+	 * decoding the section would.
+	 *
+	 * @param start The index to start from, inclusive
+	 * @param end The index to end at, exclusive
+	 *
+	 * @return Whether every index in the range is a whole character
+	 */
+	public boolean isAscii(int start, int end) {
+		return true;
+	}
+
+	/**
+	 * Checks whether the line starts with the given ASCII prefix, without decoding
+	 * any of it.
+	 *
+	 * @param prefix The prefix to check for
+	 *
+	 * @return Whether the line starts with the given prefix
+	 */
+	public boolean startsWith(String prefix) {
+		int length = prefix.length();
+		if (length() < length) return false;
+
+		for (int i = 0; i < length; i++) {
+			if (charAt(i) != prefix.charAt(i)) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Decodes the given section of the line into a {@link String}.
+	 *
+	 * @param start The index to start from, inclusive
+	 * @param end The index to end at, exclusive
+	 *
+	 * @return The given part of the line
+	 *
+	 * @throws IndexOutOfBoundsException If the range doesn't fit within the line
+	 */
+	public abstract String slice(int start, int end);
+
+	/**
+	 * Decodes the rest of the line from the given index into a {@link String}.
+	 *
+	 * @param start The index to start from, inclusive
+	 *
+	 * @return The line from the given index onwards
+	 *
+	 * @throws IndexOutOfBoundsException If the index is past the end of the line
+	 */
+	public String slice(int start) {
+		return slice(start, length());
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return slice(start, end);
+	}
+
+	/**
+	 * Decodes the entire line into a {@link String}.
+	 */
+	@Override
+	public abstract String toString();
+}
@@ -19,7 +19,12 @@ package com.chocohead.mappings;
 import org.objectweb.asm.commons.Remapper;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 
 class TinyMappings implements Mappings {
 	private static class ClassEntryImpl implements ClassEntry {
@@ -29,9 +34,9 @@ class TinyMappings implements Mappings {
 		ClassEntryImpl(Map<String, Integer> namespacesToIds, MappedStringDeduplicator deduplicator, String[] data, String[] namespaceList) {
 			this.namespacesToIds = namespacesToIds;
 			names = new String[namespaceList.length];
-			for (int i = 0, end = Math.min(namespaceList.length, data.length - 1); i < end; i++) {
-				if (data[i + 1].isEmpty()) continue; //Skip holes
-				names[i] = deduplicator.deduplicate(MappedStringDeduplicator.Category.CLASS_NAME, data[i + 1]);
+			for (int i = 0, end = Math.min(namespaceList.length, data.length); i < end; i++) {
+				if (data[i] == null || data[i].isEmpty()) continue; //Skip holes
+				names[i] = deduplicator.deduplicate(MappedStringDeduplicator.Category.CLASS_NAME, data[i]);
 			}
 
 			assert Arrays.stream(names).filter(Objects::nonNull).noneMatch(String::isEmpty);
@@ -41,13 +46,18 @@ class TinyMappings implements Mappings {
 		public String get(String namespace) {
 			return names[namespacesToIds.get(namespace)];
 		}
+
+		@Override
+		public String get(int namespace) {
+			return names[namespace];
+		}
 	}
 
 	private static class EntryImpl implements FieldEntry, MethodEntry {
 		private final Map<String, Integer> namespacesToIds;
 		private final EntryTriple[] names;
 
-		EntryImpl(Map<String, Integer> namespacesToIds, MappedStringDeduplicator deduplicator, String[] data, String[] namespaceList, Map<String, ClassRemapper> targetRemappers, boolean isMethod) {
+		EntryImpl(Map<String, Integer> namespacesToIds, MappedStringDeduplicator deduplicator, String[] data, String[] namespaceList, String[] remapped, boolean isMethod) {
 			MappedStringDeduplicator.Category descCategory = isMethod
 					? MappedStringDeduplicator.Category.METHOD_DESCRIPTOR
 					: MappedStringDeduplicator.Category.FIELD_DESCRIPTOR;
@@ -56,37 +66,60 @@ class TinyMappings implements Mappings {
 			names = new EntryTriple[namespaceList.length];
 			// add namespaceList[0]
 			names[0] = new EntryTriple(
-					deduplicator.deduplicate(MappedStringDeduplicator.Category.CLASS_NAME, data[1]),
-					deduplicator.deduplicate(MappedStringDeduplicator.Category.NAME, data[3]),
-					deduplicator.deduplicate(descCategory, data[2])
+					deduplicator.deduplicate(MappedStringDeduplicator.Category.CLASS_NAME, data[0]),
+					deduplicator.deduplicate(MappedStringDeduplicator.Category.NAME, data[2]),
+					deduplicator.deduplicate(descCategory, data[1])
 			);
 			// add namespaceList[1+]
-			for (int i = 1, end = Math.min(namespaceList.length, data.length - 3); i < end; i++) {
-				if (data[3 + i].isEmpty()) continue; //Skip holes
-				String target = namespaceList[i];
-				String mappedOwner = targetRemappers.get(target).map(data[1]);
-				String mappedDesc = isMethod ? targetRemappers.get(target).mapMethodDesc(data[2]) : targetRemappers.get(target).mapDesc(data[2]);
-				names[i] = new EntryTriple(
-						mappedOwner, /* already deduplicated */
-						deduplicator.deduplicate(MappedStringDeduplicator.Category.NAME, data[3 + i]),
-						deduplicator.deduplicate(descCategory, mappedDesc)
+			for (int i = 1, end = Math.min(namespaceList.length, data.length - 2); i < end; i++) {
+				if (data[2 + i] == null || data[2 + i].isEmpty()) continue; //Skip holes
+				names[i] = ArrayEntries.triple(names, i,
+						remapped[2 * i], /* already deduplicated */
+						deduplicator.deduplicate(MappedStringDeduplicator.Category.NAME, data[2 + i]),
+						deduplicator.deduplicate(descCategory, remapped[2 * i + 1])
 				);
 			}
 
 			assert Arrays.stream(names).filter(Objects::nonNull).map(EntryTriple::getName).noneMatch(String::isEmpty);
 		}
 
+		/**
+		 * Remaps the owner and descriptor of the given member line into each of the
+		 * other namespaces. This only reads from the remappers so is safe to do for
+		 * different lines at the same time.
+		 *
+		 * @return The owner and descriptor pairs for each namespace, with holes left as null
+		 */
+		static String[] remap(String[] data, String[] namespaceList, Map<String, ClassRemapper> targetRemappers) {
+			String[] out = new String[2 * namespaceList.length];
+
+			for (int i = 1, end = Math.min(namespaceList.length, data.length - 2); i < end; i++) {
+				if (data[2 + i] == null || data[2 + i].isEmpty()) continue; //Skip holes
+				ClassRemapper remapper = targetRemappers.get(namespaceList[i]);
+				out[2 * i] = remapper.map(data[0]);
+				out[2 * i + 1] = remapper.descriptors.apply(data[1]);
+			}
+
+			return out;
+		}
+
 		@Override
 		public EntryTriple get(String namespace) {
 			return names[namespacesToIds.get(namespace)];
 		}
+
+		@Override
+		public EntryTriple get(int namespace) {
+			return names[namespace];
+		}
 	}
 
 	private static class ClassRemapper extends Remapper {
-		private final Map<String, ClassEntryImpl> firstNamespaceClassEntries;
+		private final FilteredClassMap<ClassEntryImpl> firstNamespaceClassEntries;
 		private final String destinationNamespace;
+		final DescriptorRemapper descriptors = new DescriptorRemapper(this);
 
-		ClassRemapper(Map<String, ClassEntryImpl> firstNamespaceClassEntries, String destinationNamespace) {
+		ClassRemapper(FilteredClassMap<ClassEntryImpl> firstNamespaceClassEntries, String destinationNamespace) {
 			this.firstNamespaceClassEntries = firstNamespaceClassEntries;
 			this.destinationNamespace = destinationNamespace;
 		}
@@ -105,11 +138,51 @@ class TinyMappings implements Mappings {
 		}
 	}
 
+	private static final class Lines {
+		final List<String[]> classLines = new ArrayList<>();
+		final List<String[]> fieldLines = new ArrayList<>();
+		final List<String[]> methodLines = new ArrayList<>();
+
+		Lines() {
+		}
+
+		void read(TinyInput reader, TinyLine line, int namespaces) throws IOException {
+			for (; line != null; line = reader.nextLine()) {
+				//Only the columns after the type are split out, the type itself never needs to be a String
+				if (line.startsWith("CLASS\t")) {
+					classLines.add(TinyV2Visitor.splitIndents(line, 6, namespaces));
+				} else if (line.startsWith("FIELD\t")) {
+					fieldLines.add(TinyV2Visitor.splitIndents(line, 6, namespaces + 2));
+				} else if (line.startsWith("METHOD\t")) {
+					methodLines.add(TinyV2Visitor.splitIndents(line, 7, namespaces + 2));
+				}
+			}
+		}
+
+		void addAll(Lines other) {
+			classLines.addAll(other.classLines);
+			fieldLines.addAll(other.fieldLines);
+			methodLines.addAll(other.methodLines);
+		}
+	}
+
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
 	private final Map<String, Integer> namespacesToIds;
+	private final MappingsIndex index = new MappingsIndex(this);
 	private final List<ClassEntryImpl> classEntries;
 	private final List<EntryImpl> fieldEntries, methodEntries;
 
-	TinyMappings(String firstLine, OffsetReader reader, MappedStringDeduplicator deduplicator) throws IOException {
+	TinyMappings(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator) throws IOException {
+		this(firstLine, reader, deduplicator, null);
+	}
+
+	/**
+	 * Reads the given V1 mappings, using the given pool (if not null) to split the
+	 * lines up and create the member entries in parallel. The resulting entries are
+	 * in the same order as when reading without a pool. The deduplicator must be
+	 * thread safe if a pool is given.
+	 */
+	TinyMappings(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, ForkJoinPool pool) throws IOException {
 		if (firstLine == null) throw new IllegalArgumentException("Empty reader!");
 
 		String[] header = firstLine.split("\t");
@@ -128,51 +201,86 @@ class TinyMappings implements Mappings {
 			}
 		}
 
-		classEntries = new ArrayList<>();
+		Lines lines = new Lines();
+		TinyLine line = reader.nextLine();
+		ByteBuffer rest = pool != null && line != null && reader instanceof ByteOffsetReader ? ((ByteOffsetReader) reader).rest() : null;
 
-		String firstNamespace = header[1];
-		Map<String, ClassEntryImpl> firstNamespaceClassEntries = new HashMap<>();
-		List<String[]> fieldLines = new ArrayList<>();
-		List<String[]> methodLines = new ArrayList<>();
-
-		String line;
-		while ((line = reader.readLine()) != null) {
-			String[] splitLine = line.split("\t");
-			if (splitLine.length >= 2) {
-				switch (splitLine[0]) {
-					case "CLASS":
-						ClassEntryImpl entry = new ClassEntryImpl(namespacesToIds, deduplicator, splitLine, namespaceList);
-						classEntries.add(entry);
-						firstNamespaceClassEntries.put(entry.get(firstNamespace), entry);
-						break;
-					case "FIELD":
-						fieldLines.add(splitLine);
-						break;
-					case "METHOD":
-						methodLines.add(splitLine);
-						break;
+		if (rest == null) {
+			lines.read(reader, line, namespaceList.length);
+		} else {
+			//Split the rest of the file up and read each part into its own lines, putting them back together in order after
+			int length = rest.remaining();
+			int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * 4));
+
+			List<ForkJoinTask<Lines>> chunks = new ArrayList<>(length / chunkSize + 1);
+			try {
+				for (int start = 0, end; start < length; start = end) {
+					end = TinyV2Visitor.nextLine(rest, Math.min(start + chunkSize, length));
+					ByteBuffer chunk = TinyV2Visitor.slice(rest, start, end);
+
+					chunks.add(pool.submit(() -> {
+						Lines out = new Lines();
+
+						try (ByteOffsetReader chunkReader = new ByteOffsetReader(chunk)) {
+							out.read(chunkReader, chunkReader.nextLine(), namespaceList.length);
+						}
+
+						return out;
+					}));
+				}
+
+				for (ForkJoinTask<Lines> chunk : chunks) {
+					lines.addAll(TinyV2Visitor.await(chunk));
+				}
+			} finally {
+				for (ForkJoinTask<Lines> chunk : chunks) {
+					chunk.cancel(false);
 				}
 			}
 		}
 
-		fieldEntries = new ArrayList<>(fieldLines.size());
-		methodEntries = new ArrayList<>(methodLines.size());
+		classEntries = new ArrayList<>(lines.classLines.size());
+		String firstNamespace = header[1];
+		FilteredClassMap<ClassEntryImpl> firstNamespaceClassEntries = new FilteredClassMap<>(lines.classLines.size());
+
+		for (String[] splitLine : lines.classLines) {
+			ClassEntryImpl entry = new ClassEntryImpl(namespacesToIds, deduplicator, splitLine, namespaceList);
+			classEntries.add(entry);
+			firstNamespaceClassEntries.put(entry.get(firstNamespace), entry);
+		}
 
 		Map<String, ClassRemapper> targetRemappers = new HashMap<>();
 		for (int i = 1; i < namespaceList.length; i++) {
 			targetRemappers.put(namespaceList[i], new ClassRemapper(firstNamespaceClassEntries, namespaceList[i]));
 		}
 
-		for (String[] splitLine : fieldLines) {
-			fieldEntries.add(new EntryImpl(namespacesToIds, deduplicator, splitLine, namespaceList, targetRemappers, false));
-		}
+		//Remapping the descriptors is the slow part, so is done in parallel if possible
+		fieldEntries = createEntries(lines.fieldLines, namespacesToIds, deduplicator, namespaceList, targetRemappers, false, pool);
+		methodEntries = createEntries(lines.methodLines, namespacesToIds, deduplicator, namespaceList, targetRemappers, true, pool);
 
-		for (String[] splitLine : methodLines) {
-			methodEntries.add(new EntryImpl(namespacesToIds, deduplicator, splitLine, namespaceList, targetRemappers, false));
-		}
+		// classEntries/fieldEntries/methodEntries are already the right size
+	}
+
+	private static List<EntryImpl> createEntries(List<String[]> lines, Map<String, Integer> namespacesToIds, MappedStringDeduplicator deduplicator,
+			String[] namespaceList, Map<String, ClassRemapper> targetRemappers, boolean isMethod, ForkJoinPool pool) throws IOException {
+		IntFunction<EntryImpl> factory = i -> {
+			String[] line = lines.get(i);
+			return new EntryImpl(namespacesToIds, deduplicator, line, namespaceList, EntryImpl.remap(line, namespaceList, targetRemappers), isMethod);
+		};
+
+		if (pool == null) {
+			List<EntryImpl> out = new ArrayList<>(lines.size());
+
+			for (int i = 0; i < lines.size(); i++) {
+				out.add(factory.apply(i));
+			}
 
-		((ArrayList<ClassEntryImpl>) classEntries).trimToSize();
-		// fieldEntries/methodEntries are already the right size
+			return out;
+		} else {
+			//Parallel streams run in the pool they are started from
+			return new ArrayList<>(Arrays.asList(TinyV2Visitor.await(pool.submit(() -> IntStream.range(0, lines.size()).parallel()
+					.mapToObj(factory).toArray(EntryImpl[]::new)))));
+		}
 	}
 
 	@Override
@@ -180,6 +288,27 @@ class TinyMappings implements Mappings {
 		return namespacesToIds.keySet();
 	}
 
+	@Override
+	public int namespaceId(String namespace) {
+		//The key set isn't in the order of the ids, so the default implementation can't be used
+		return namespacesToIds.getOrDefault(namespace, -1);
+	}
+
+	@Override
+	public ClassEntry getClass(String namespace, String name) {
+		return index.getClass(namespace, name);
+	}
+
+	@Override
+	public FieldEntry getField(String namespace, String owner, String name, String desc) {
+		return index.getField(namespace, owner, name, desc);
+	}
+
+	@Override
+	public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+		return index.getMethod(namespace, owner, name, desc);
+	}
+
 	@Override
 	public Collection<? extends ClassEntry> getClassEntries() {
 		return classEntries;
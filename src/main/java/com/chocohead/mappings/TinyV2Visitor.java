@@ -8,8 +8,16 @@
 package com.chocohead.mappings;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import com.chocohead.mappings.visitor.ClassVisitor;
 import com.chocohead.mappings.visitor.FieldVisitor;
@@ -21,6 +29,7 @@ import com.chocohead.mappings.visitor.ParameterVisitor;
 public final class TinyV2Visitor {
 	private static final String HEADER_MARKER = "tiny";
 	private static final char INDENT = '\t';
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
 
 	public static void read(Reader reader, MappingsVisitor visitor) throws IOException {
 		try (OffsetReader or = new OffsetReader(reader)) {
@@ -28,10 +37,57 @@ public final class TinyV2Visitor {
 		}
 	}
 
-	static void read(String firstLine, OffsetReader reader, MappingsVisitor visitor) throws IOException {
+	public static void read(InputStream stream, MappingsVisitor visitor) throws IOException {
+		try (ByteOffsetReader reader = new ByteOffsetReader(stream)) {
+			read(reader.readLine(), reader, visitor);
+		}
+	}
+
+	public static void read(ByteBuffer input, MappingsVisitor visitor) throws IOException {
+		try (ByteOffsetReader reader = new ByteOffsetReader(input)) {
+			read(reader.readLine(), reader, visitor);
+		}
+	}
+
+	/**
+	 * Reads the given input using the {@link ForkJoinPool#commonPool() common pool}
+	 *
+	 * @see #readParallel(ByteBuffer, MappingsVisitor, ForkJoinPool)
+	 */
+	public static void readParallel(ByteBuffer input, MappingsVisitor visitor) throws IOException {
+		readParallel(input, visitor, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Reads the given input by splitting it up at the top level classes and reading
+	 * each section in parallel on the given pool. The visitor is only called from
+	 * the calling thread, in the same order and with the same offsets as reading
+	 * the input with {@link #read(ByteBuffer, MappingsVisitor)} would.
+	 *
+	 * @param input The mappings to be read
+	 * @param visitor The visitor to pass the mappings to
+	 * @param pool The pool to read the sections of the input on
+	 *
+	 * @throws IOException If the input is not a valid Tiny V2 file
+	 */
+	public static void readParallel(ByteBuffer input, MappingsVisitor visitor, ForkJoinPool pool) throws IOException {
+		try (ByteOffsetReader reader = new ByteOffsetReader(input)) {
+			read(reader.readLine(), reader, visitor, pool);
+		}
+	}
+
+	static void read(String firstLine, TinyInput reader, MappingsVisitor visitor) throws IOException {
 		visit(firstLine, reader, visitor);
 	}
 
+	static void read(String firstLine, TinyInput reader, MappingsVisitor visitor, ForkJoinPool pool) throws IOException {
+		if (pool != null && reader instanceof ByteOffsetReader) {
+			visitParallel(firstLine, (ByteOffsetReader) reader, visitor, pool);
+		} else {
+			visit(firstLine, reader, visitor);
+		}
+	}
+
 	private TinyV2Visitor() {
 	}
 
@@ -44,7 +100,7 @@ public final class TinyV2Visitor {
 			if (parent != null) keepReading = parent.shouldKeepReading();
 		}
 
-		public abstract LineReader<?> readLine(long offset, int indent, String line);
+		public abstract LineReader<?> readLine(long offset, int indent, TinyLine line);
 
 		protected void keepReading() {
 			keepReading = true;
@@ -77,7 +133,7 @@ public final class TinyV2Visitor {
 		}
 
 		@Override
-		public LineReader<?> readLine(long offset, int indent, String line) {
+		public LineReader<?> readLine(long offset, int indent, TinyLine line) {
 			switch (indent) {
 			case 0:
 				keepReading();
@@ -85,11 +141,11 @@ public final class TinyV2Visitor {
 
 			case 1:
 				String[] bits = splitIndents(line, 1, 2);
-				if (bits[2] == null) {
-					visitor.visitProperty(bits[1]);
-					if (!escapedNames) escapedNames = ESCAPED_NAMES_PROPERTY.equals(bits[1]); 
+				if (bits.length < 2) {
+					visitor.visitProperty(bits[0]);
+					if (!escapedNames) escapedNames = ESCAPED_NAMES_PROPERTY.equals(bits[0]); 
 				} else {
-					visitor.visitProperty(bits[1], bits[2]);
+					visitor.visitProperty(bits[0], bits[1]);
 				}
 				return this;
 
@@ -107,6 +163,7 @@ public final class TinyV2Visitor {
 	private static class ClassReader extends LineReader<MetadataReader> {
 		private final MethodReader methodReader = new MethodReader(this);
 		private final FieldReader fieldReader = new FieldReader(this);
+		final TinyColumns columns;
 		protected final MappingsVisitor visitor;
 		public final boolean escapedNames;
 		public final int namespaces;
@@ -120,17 +177,17 @@ public final class TinyV2Visitor {
 			this.visitor = visitor;
 			this.namespaces = namespaces;
 			this.escapedNames = escapedNames;
+			columns = new TinyColumns(escapedNames);
 		}
 
 		@Override
-		public LineReader<?> readLine(long offset, int indent, String line) {
+		public LineReader<?> readLine(long offset, int indent, TinyLine line) {
 			out: switch (indent) {
 			case 0:
 				if (line.charAt(0) == 'c' && line.charAt(1) == '\t') {
 					inClass = true;
 
-					String[] names = splitIndents(line, 2, namespaces);					
-					currentClass = visitor.visitClass(offset, escapedNames ? unescapeNames(names, 0) : names);
+					currentClass = visitor.visitClass(offset, columns.split(line, 2));
 
 					return this;
 				}
@@ -143,15 +200,13 @@ public final class TinyV2Visitor {
 						if (!inClass) break;
 
 						if (currentClass != null) {
-							String[] parts = splitIndents(line, 3, namespaces + 1);
+							TinyColumns parts = columns.split(line, 3);
 
-							if (parts.length != namespaces + 1) {
-								throw new IllegalArgumentException("Invalid method declaration: \"" + line.substring(1) + '"');
+							if (parts.size() != namespaces + 1) {
+								throw new IllegalArgumentException("Invalid method declaration: \"" + line.slice(1) + '"');
 							}
 
-							String desc = escapedNames ? unescape(parts[0]) : parts[0];
-							String[] names = escapedNames ? unescapeNames(parts, 1) : Arrays.copyOfRange(parts, 1, parts.length);
-							methodReader.giveVisitor(currentClass.visitMethod(offset, names, desc));
+							methodReader.giveVisitor(currentClass.visitMethod(offset, parts));
 						}
 
 						return methodReader;
@@ -160,15 +215,13 @@ public final class TinyV2Visitor {
 						if (!inClass) break;
 
 						if (currentClass != null) {
-							String[] parts = splitIndents(line, 3, namespaces + 1);
+							TinyColumns parts = columns.split(line, 3);
 
-							if (parts.length != namespaces + 1) {
-								throw new IllegalArgumentException("Invalid field declaration: \"" + line.substring(1) + '"');
+							if (parts.size() != namespaces + 1) {
+								throw new IllegalArgumentException("Invalid field declaration: \"" + line.slice(1) + '"');
 							}
 
-							String desc = escapedNames ? unescape(parts[0]) : parts[0];
-							String[] names = escapedNames ? unescapeNames(parts, 1) : Arrays.copyOfRange(parts, 1, parts.length);
-							fieldReader.giveVisitor(currentClass.visitField(offset, names, desc));
+							fieldReader.giveVisitor(currentClass.visitField(offset, parts));
 						}
 
 						return fieldReader;
@@ -176,7 +229,7 @@ public final class TinyV2Visitor {
 					case 'c':
 						if (!inClass) break;
 
-						if (currentClass != null) currentClass.visitComment(unescape(line.substring(3))); //Apparently always escaped
+						if (currentClass != null) currentClass.visitComment(unescape(line.slice(3))); //Apparently always escaped
 						return this;
 
 					default:
@@ -189,7 +242,7 @@ public final class TinyV2Visitor {
 			}
 
 			default:
-				throw new IllegalArgumentException("Broken indent! Expected 0 or 1, found " + indent + " from line containing " + line.substring(indent));
+				throw new IllegalArgumentException("Broken indent! Expected 0 or 1, found " + indent + " from line containing " + line.slice(indent));
 			}
 
 			throw new IllegalArgumentException("Invalid identifier on line \"" + line + '"');
@@ -220,45 +273,39 @@ public final class TinyV2Visitor {
 		}
 
 		@Override
-		public LineReader<?> readLine(long offset, int indent, String line) {
+		public LineReader<?> readLine(long offset, int indent, TinyLine line) {
 			switch (indent) {
 			case 2:
 				if (line.charAt(3) == '\t') {
 					switch (line.charAt(2)) {
 					case 'p':
 						if (visitor != null) {
-							String[] parts = splitIndents(line, 4, parent.namespaces + 1);
+							TinyColumns parts = parent.columns.split(line, 4);
 
-							if (parts.length != parent.namespaces + 1) {
-								throw new IllegalArgumentException("Invalid parameter declaration: \"" + line.substring(2) + '"');
+							if (parts.size() != parent.namespaces + 1) {
+								throw new IllegalArgumentException("Invalid parameter declaration: \"" + line.slice(2) + '"');
 							}
 
-							int lvIndex = Integer.parseInt(parts[0]);
-							String[] names = parent.escapedNames ? unescapeNames(parts, 1) : Arrays.copyOfRange(parts, 1, parts.length);
-							paramReader.giveVisitor(visitor.visitParameter(offset, names, lvIndex));
+							paramReader.giveVisitor(visitor.visitParameter(offset, parts));
 						}
 
 						return paramReader;
 
 					case 'v':
 						if (visitor != null) {
-							String[] parts = splitIndents(line, 4, parent.namespaces + 3);
+							TinyColumns parts = parent.columns.split(line, 4);
 
-							if (parts.length != parent.namespaces + 3) {
-								throw new IllegalArgumentException("Invalid local variable declaration: \"" + line.substring(2) + '"');
+							if (parts.size() != parent.namespaces + 3) {
+								throw new IllegalArgumentException("Invalid local variable declaration: \"" + line.slice(2) + '"');
 							}
 
-							int lvIndex = Integer.parseInt(parts[0]);
-							int startOffset = Integer.parseInt(parts[1]);
-							int lvtIndex = Integer.parseInt(parts[2]);
-							String[] names = parent.escapedNames ? unescapeNames(parts, 3) : Arrays.copyOfRange(parts, 3, parts.length);
-							localVarReader.giveVisitor(visitor.visitLocalVariable(offset, names, lvIndex, startOffset, lvtIndex));
+							localVarReader.giveVisitor(visitor.visitLocalVariable(offset, parts));
 						}
 
 						return localVarReader;
 
 					case 'c':
-						if (visitor != null) visitor.visitComment(unescape(line.substring(4)));
+						if (visitor != null) visitor.visitComment(unescape(line.slice(4)));
 						return this;
 					}
 				}
@@ -273,7 +320,7 @@ public final class TinyV2Visitor {
 				return parent;
 
 			default:
-				throw new IllegalArgumentException("Broken indent! Expected 0 to 2, found " + indent + " from line containing " + line.substring(indent));
+				throw new IllegalArgumentException("Broken indent! Expected 0 to 2, found " + indent + " from line containing " + line.slice(indent));
 			}
 		}
 	}
@@ -290,11 +337,11 @@ public final class TinyV2Visitor {
 		}
 
 		@Override
-		public LineReader<?> readLine(long offset, int indent, String line) {
+		public LineReader<?> readLine(long offset, int indent, TinyLine line) {
 			switch (indent) {
 			case 3:
 				if (line.charAt(3) == 'c' && line.charAt(4) == '\t') {
-					if (visitor != null) visitor.visitComment(unescape(line.substring(5)));
+					if (visitor != null) visitor.visitComment(unescape(line.slice(5)));
 					return this;
 				}
 
@@ -308,7 +355,7 @@ public final class TinyV2Visitor {
 				return parent;
 
 			default:
-				throw new IllegalArgumentException("Broken indent! Expected 0 to 3, found " + indent + " from line containing " + line.substring(indent));
+				throw new IllegalArgumentException("Broken indent! Expected 0 to 3, found " + indent + " from line containing " + line.slice(indent));
 			}
 		}
 	}
@@ -325,11 +372,11 @@ public final class TinyV2Visitor {
 		}
 
 		@Override
-		public LineReader<?> readLine(long offset, int indent, String line) {
+		public LineReader<?> readLine(long offset, int indent, TinyLine line) {
 			switch (indent) {
 			case 3:
 				if (line.charAt(3) == 'c' && line.charAt(4) == '\t') {
-					if (visitor != null) visitor.visitComment(unescape(line.substring(5)));
+					if (visitor != null) visitor.visitComment(unescape(line.slice(5)));
 					return this;
 				}
 
@@ -343,7 +390,7 @@ public final class TinyV2Visitor {
 				return parent;
 
 			default:
-				throw new IllegalArgumentException("Broken indent! Expected 0 to 3, found " + indent + " from line containing " + line.substring(indent));
+				throw new IllegalArgumentException("Broken indent! Expected 0 to 3, found " + indent + " from line containing " + line.slice(indent));
 			}
 		}
 	}
@@ -360,11 +407,11 @@ public final class TinyV2Visitor {
 		}
 
 		@Override
-		public LineReader<?> readLine(long offset, int indent, String line) {
+		public LineReader<?> readLine(long offset, int indent, TinyLine line) {
 			switch (indent) {
 			case 2:
 				if (line.charAt(2) == 'c' && line.charAt(3) == '\t') {
-					if (visitor != null) visitor.visitComment(unescape(line.substring(4)));
+					if (visitor != null) visitor.visitComment(unescape(line.slice(4)));
 					return this;
 				}
 
@@ -378,41 +425,45 @@ public final class TinyV2Visitor {
 				return parent;
 
 			default:
-				throw new IllegalArgumentException("Broken indent! Expected 0 to 2, found " + indent + " from line containing " + line.substring(indent));
+				throw new IllegalArgumentException("Broken indent! Expected 0 to 2, found " + indent + " from line containing " + line.slice(indent));
 			}
 		}
 	}
 
-	private static void visit(String firstLine, OffsetReader reader, MappingsVisitor visitor) throws IOException {
+	private static MetadataReader readHeader(String firstLine, MappingsVisitor visitor) {
 		if (firstLine == null) throw new IllegalArgumentException("Empty reader!");
 
-		LineReader<?> lineReader; {
-			String[] parts = splitIndents(firstLine, 0, 5);
-			if (parts.length < 5 || !HEADER_MARKER.equals(parts[0])) {
-				throw new IllegalArgumentException("Unsupported format!");
-			}
+		String[] parts = splitIndents(new TinyLine.Decoded(firstLine), 0, 5);
+		if (parts.length < 5 || !HEADER_MARKER.equals(parts[0])) {
+			throw new IllegalArgumentException("Unsupported format!");
+		}
 
-			int majorVersion;
-			try {
-				majorVersion = Integer.parseInt(parts[1]);
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException("Invalid major version!", e);
-			}
+		int majorVersion;
+		try {
+			majorVersion = Integer.parseInt(parts[1]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid major version!", e);
+		}
 
-			int minorVersion;
-			try {
-				minorVersion = Integer.parseInt(parts[2]);
-			} catch (NumberFormatException e) {
-				throw new IllegalArgumentException("Invalid minor version!", e);
-			}
+		int minorVersion;
+		try {
+			minorVersion = Integer.parseInt(parts[2]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid minor version!", e);
+		}
 
-			visitor.visitVersion(majorVersion, minorVersion);
-			visitor.visitNamespaces(Arrays.copyOfRange(parts, 3, parts.length));
+		visitor.visitVersion(majorVersion, minorVersion);
+		visitor.visitNamespaces(Arrays.copyOfRange(parts, 3, parts.length));
 
-			lineReader = new MetadataReader(visitor, parts.length - 3); //Number of namespaces
-		}
+		return new MetadataReader(visitor, parts.length - 3); //Number of namespaces
+	}
+
+	private static void visit(String firstLine, TinyInput reader, MappingsVisitor visitor) throws IOException {
+		readLines(reader, reader.nextLine(), readHeader(firstLine, visitor)).endFile();
+	}
 
-		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+	private static LineReader<?> readLines(TinyInput reader, TinyLine line, LineReader<?> lineReader) throws IOException {
+		for (; line != null; line = reader.nextLine()) {
 			try {
 				int currentIndent = countIndent(line);
 
@@ -424,10 +475,165 @@ public final class TinyV2Visitor {
 			}
 		}
 
-		lineReader.endFile();
+		return lineReader;
+	}
+
+	private static TinyLine readMetadata(TinyInput reader, MetadataReader metadata) throws IOException {
+		TinyLine line;
+		int indent;
+		while ((line = reader.nextLine()) != null && (indent = countIndent(line)) > 0) {
+			try {
+				metadata.readLine(reader.lineStart(), indent, line);
+			} catch (RuntimeException e) {
+				throw new IOException("Error reading line \"" + line + '"', e);
+			}
+		}
+
+		return line;
+	}
+
+	/**
+	 * Reads the header and any properties from the given reader, stopping once the
+	 * first class is reached. {@link MappingsVisitor#finish()} is not called.
+	 *
+	 * @return The first class line, or null if the file has no classes
+	 */
+	static TinyLine readMetadata(String firstLine, TinyInput reader, MappingsVisitor visitor) throws IOException {
+		return readMetadata(reader, readHeader(firstLine, visitor));
+	}
+
+	/**
+	 * Reads the given section of a file, which must start with a class line or be
+	 * empty. {@link MappingsVisitor#finish()} is not called, offsets are relative
+	 * to the start of the section.
+	 *
+	 * @param classes The section of the file to read
+	 * @param namespaces The number of namespaces the file has
+	 * @param escapedNames Whether the names in the file are escaped
+	 * @param visitor The visitor to pass the classes to
+	 *
+	 * @throws IOException If the section is not valid
+	 */
+	static void readClasses(ByteBuffer classes, int namespaces, boolean escapedNames, MappingsVisitor visitor) throws IOException {
+		ClassReader classReader = new ClassReader(visitor, namespaces, escapedNames);
+		classReader.shouldKeepReading(); //Starting straight on a class line, no hand over to do
+
+		try (ByteOffsetReader reader = new ByteOffsetReader(classes)) {
+			readLines(reader, reader.nextLine(), classReader);
+		}
+	}
+
+	private static void visitParallel(String firstLine, ByteOffsetReader reader, MappingsVisitor visitor, ForkJoinPool pool) throws IOException {
+		MetadataReader metadata = readHeader(firstLine, visitor);
+		TinyLine line = readMetadata(reader, metadata);
+
+		ByteBuffer classes = line != null ? reader.rest() : null;
+		if (classes == null) {//Either there are no classes or the rest of the input isn't available to split up
+			readLines(reader, line, metadata).endFile();
+			return;
+		}
+
+		long base = reader.lineStart();
+		int length = classes.remaining();
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * 4));
+
+		List<ForkJoinTask<RecordingVisitor>> chunks = new ArrayList<>(length / chunkSize + 1);
+		try {
+			for (int start = 0, end; start < length; start = end) {
+				end = nextClass(classes, start + chunkSize);
+
+				ByteBuffer chunk = slice(classes, start, end);
+				long offset = base + start;
+
+				chunks.add(pool.submit(() -> {
+					RecordingVisitor recorder = new RecordingVisitor(offset);
+					readClasses(chunk, metadata.namespaces, metadata.escapedNames, recorder);
+					return recorder;
+				}));
+			}
+
+			for (ForkJoinTask<RecordingVisitor> chunk : chunks) {
+				await(chunk).replay(visitor);
+			}
+		} finally {
+			for (ForkJoinTask<RecordingVisitor> chunk : chunks) {
+				chunk.cancel(false);
+			}
+		}
+
+		visitor.finish();
+	}
+
+	private static int nextClass(ByteBuffer input, int from) {
+		int limit = input.limit();
+
+		for (int i = nextLine(input, from); i < limit; i = nextLine(input, i)) {
+			if (i + 1 < limit && input.get(i) == 'c' && input.get(i + 1) == '\t') return i;
+		}
+
+		return limit;
 	}
 
-	private static int countIndent(String line) {
+	/**
+	 * Finds the start of the first line after the given position in the input.
+	 *
+	 * @param input The input to search through
+	 * @param from The index in the input to start searching from
+	 *
+	 * @return The index of the start of the next line, or the input's limit if
+	 *         there are no more lines
+	 */
+	static int nextLine(ByteBuffer input, int from) {
+		int limit = input.limit();
+
+		for (int i = from; i < limit; i++) {
+			switch (input.get(i)) {
+			case '\n':
+				return i + 1;
+
+			case '\r':
+				return i + 1 < limit && input.get(i + 1) == '\n' ? i + 2 : i + 1;
+			}
+		}
+
+		return limit;
+	}
+
+	static ByteBuffer slice(ByteBuffer input, int start, int end) {
+		ByteBuffer out = input.duplicate();
+		out.limit(end).position(start);
+		return out.slice();
+	}
+
+	/**
+	 * Waits for the given task reading part of a file to finish.
+	 *
+	 * @param task The task to wait for
+	 *
+	 * @return The result of the task
+	 *
+	 * @throws IOException If the task failed to read its part of the file, or the
+	 *         calling thread was interrupted whilst waiting
+	 */
+	static <T> T await(ForkJoinTask<T> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for mappings to be read");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+
+			//The pool wraps the IOException thrown reading a chunk, possibly more than once
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException) throw (IOException) cause;
+			}
+
+			throw new IOException("Error reading mappings", e.getCause());
+		}
+	}
+
+	private static int countIndent(TinyLine line) {
 		int length = line.length(), out = 0;
 
 		while (out < length && line.charAt(out) == INDENT) {
@@ -437,34 +643,28 @@ public final class TinyV2Visitor {
 		return out;
 	}
 
-	static String[] splitIndents(String line, int offset, int partCountHint) {
+	static boolean isEscapedNamesProperty(String name) {
+		return MetadataReader.ESCAPED_NAMES_PROPERTY.equals(name);
+	}
+
+	static String[] splitIndents(TinyLine line, int offset, int partCountHint) {
 		String[] out = new String[Math.max(1, partCountHint)];
 
 		int split, parts = 0;
 		while ((split = line.indexOf(INDENT, offset)) >= 0) {
 			if (parts == out.length) out = Arrays.copyOf(out, out.length * 2);
 			if (split - offset > 0) {
-				out[parts++] = line.substring(offset, split);
+				out[parts++] = line.slice(offset, split);
 			} else parts++;
 			offset = split + 1;
 		}
 
 		if (parts == out.length) out = Arrays.copyOf(out, out.length + 1);
-		out[parts++] = line.substring(offset);
+		out[parts++] = line.slice(offset);
 
 		return parts == out.length ? out : Arrays.copyOf(out, parts);
 	}
 
-	static String[] unescapeNames(String[] parts, int skip) {
-		String[] out = new String[parts.length - skip];
-
-		for (int i = 0; i < out.length; i++) {
-			out[i] = unescape(parts[i + skip]);
-		}
-
-		return out;
-	}
-
 	private static final String TO_ESCAPE = "\\\n\r\0\t";
 	private static final String ESCAPED = "\\nr0t";
 	static String unescape(String part) {
@@ -9,13 +9,10 @@ package com.chocohead.mappings;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -46,18 +43,18 @@ import com.chocohead.mappings.visitor.ParameterVisitor;
 
 public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 	public static Mappings read(InputStream stream, boolean saveMemoryUsage) throws IOException {
-		try (OffsetReader reader = new OffsetReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+		try (ByteOffsetReader reader = new ByteOffsetReader(stream)) {
 			return read(reader.readLine(), reader, saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY, false, false, false);
 		}
 	}
 
 	public static ExtendedMappings fullyRead(InputStream stream, boolean saveMemoryUsage) throws IOException {
-		try (OffsetReader reader = new OffsetReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+		try (ByteOffsetReader reader = new ByteOffsetReader(stream)) {
 			return read(reader.readLine(), reader, saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY, true, true, true);
 		}
 	}
 
-	private static ExtendedMappings read(String firstLine, OffsetReader reader, MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) throws IOException {
+	private static ExtendedMappings read(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) throws IOException {
 		TinyV2VisitorBetterBridge visitor = new TinyV2VisitorBetterBridge(deduplicator, keepParams, keepLocals, keepComments);
 		TinyV2Visitor.read(firstLine, reader, visitor);
 		return visitor.getMappings();
@@ -265,30 +262,26 @@ public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 		Comments comments = Comments.empty();
 
 		if (this.namespaces.length > 1) {
-			Remapper[] remappers = new Remapper[this.namespaces.length];
-
-			@SuppressWarnings("unchecked") //We'll be careful Java, no accidents
-			Map<String, String>[] classPools = new HashMap[this.namespaces.length];
-			for (int i = 1; i < classPools.length; i++) classPools[i] = new HashMap<>();
+			DescriptorRemapper[] remappers = new DescriptorRemapper[this.namespaces.length];
 
+			FilteredClassMap<String[]> classPool = new FilteredClassMap<>(classes.size());
 			for (String[] names : classes) {
 				assert names.length == this.namespaces.length;
 
-				classEntries.add(namespace -> names[namespaces.indexOf(namespace)]);
-				for (int i = 1; i < names.length; i++) {
-					classPools[i].put(names[0], names[i]);
-				}
+				classEntries.add(new ArrayEntries.Class(names, namespaces::indexOf));
+				classPool.put(names[0], names);
 			}
 
-			for (int i = 1; i < classPools.length; i++) {
-				Map<String, String> classPool = classPools[i]; //Unpack here so the anonymous class only needs capture the map
+			for (int i = 1; i < remappers.length; i++) {
+				int namespace = i; //Copy to be effectively final for the anonymous class
 
-				remappers[i] = new Remapper() {
+				remappers[i] = new DescriptorRemapper(new Remapper() {
 					@Override
 					public String map(String type) {
-						return classPool.getOrDefault(type, type);
+						String[] names = classPool.get(type);
+						return names != null ? names[namespace] : type;
 					}
-				};
+				});
 			}
 
 			Map<EntryTriple, EntryTriple> remappedMembers = keepParams || keepLocals || keepComments ? new IdentityHashMap<>() : null;
@@ -300,13 +293,13 @@ public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 				newNames[0] = names[0];
 				for (int i = 1; i < names.length; i++) {
 					EntryTriple triple = names[i];
-					newNames[i] = new EntryTriple(triple.getOwner(), triple.getName(), remappers[i].mapMethodDesc(triple.getDesc()));
+					newNames[i] = ArrayEntries.triple(newNames, i, triple.getOwner(), triple.getName(), remappers[i].apply(triple.getDesc()));
 					if (remappedMembers != null) {
 						remappedMembers.put(triple, newNames[i]);
 					}
 				}
 
-				methodEntries.add(namespace -> newNames[namespaces.indexOf(namespace)]);
+				methodEntries.add(new ArrayEntries.Member(newNames, namespaces::indexOf));
 			}
 
 			for (EntryTriple[] names : fields) {
@@ -316,13 +309,13 @@ public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 				newNames[0] = names[0];
 				for (int i = 1; i < names.length; i++) {
 					EntryTriple triple = names[i];
-					newNames[i] = new EntryTriple(triple.getOwner(), triple.getName(), remappers[i].mapDesc(triple.getDesc()));
+					newNames[i] = ArrayEntries.triple(newNames, i, triple.getOwner(), triple.getName(), remappers[i].apply(triple.getDesc()));
 					if (remappedMembers != null) {
 						remappedMembers.put(triple, newNames[i]);
 					}
 				}
 
-				fieldEntries.add(namespace -> newNames[namespaces.indexOf(namespace)]);
+				fieldEntries.add(new ArrayEntries.Member(newNames, namespaces::indexOf));
 			}
 
 			Map<MethodParameter, MethodParameter> remappedParams = keepComments ? new IdentityHashMap<>() : null;
@@ -340,7 +333,7 @@ public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 						}
 					}
 
-					methodParameterEntries.add(namespace -> newNames[namespaces.indexOf(namespace)]);
+					methodParameterEntries.add(new ArrayEntries.Parameter(newNames, namespaces::indexOf));
 				}
 			}
 
@@ -359,7 +352,7 @@ public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 						}
 					}
 
-					localVariableEntries.add(namespace -> newNames[namespaces.indexOf(namespace)]);
+					localVariableEntries.add(new ArrayEntries.Local(newNames, namespaces::indexOf));
 				}
 			}
 
@@ -402,31 +395,31 @@ public class TinyV2VisitorBetterBridge implements MappingsVisitor {
 			for (String[] names : classes) {
 				assert names.length == this.namespaces.length;
 
-				classEntries.add(namespace -> names[namespaces.indexOf(namespace)]);
+				classEntries.add(new ArrayEntries.Class(names, namespaces::indexOf));
 			}
 
 			for (EntryTriple[] names : methods) {
 				assert names.length == this.namespaces.length;
 
-				methodEntries.add(namespace -> names[namespaces.indexOf(namespace)]);
+				methodEntries.add(new ArrayEntries.Member(names, namespaces::indexOf));
 			}
 
 			for (EntryTriple[] names : fields) {
 				assert names.length == this.namespaces.length;
 
-				fieldEntries.add(namespace -> names[namespaces.indexOf(namespace)]);
+				fieldEntries.add(new ArrayEntries.Member(names, namespaces::indexOf));
 			}
 
 			for (MethodParameter[] names : params) {
 				assert names.length == this.namespaces.length;
 
-				methodParameterEntries.add(namespace -> names[namespaces.indexOf(namespace)]);
+				methodParameterEntries.add(new ArrayEntries.Parameter(names, namespaces::indexOf));
 			}
 
 			for (LocalVariable[] names : locals) {
 				assert names.length == this.namespaces.length;
 
-				localVariableEntries.add(namespace -> names[namespaces.indexOf(namespace)]);
+				localVariableEntries.add(new ArrayEntries.Local(names, namespaces::indexOf));
 			}
 
 			comments = this.comments;
@@ -17,6 +17,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
@@ -38,6 +39,7 @@ import com.chocohead.mappings.model.LocalVariableEntry;
 import com.chocohead.mappings.model.MethodParameter;
 import com.chocohead.mappings.model.MethodParameterEntry;
 import com.chocohead.mappings.visitor.ClassVisitor;
+import com.chocohead.mappings.visitor.Columns;
 import com.chocohead.mappings.visitor.FieldVisitor;
 import com.chocohead.mappings.visitor.LocalVisitor;
 import com.chocohead.mappings.visitor.MappingsVisitor;
@@ -45,17 +47,17 @@ import com.chocohead.mappings.visitor.MethodVisitor;
 import com.chocohead.mappings.visitor.ParameterVisitor;
 
 class TinyV2VisitorBridge implements MappingsVisitor {
-	static Mappings read(String firstLine, OffsetReader reader, MappedStringDeduplicator deduplicator) throws IOException {
-		return read(firstLine, reader, deduplicator, false, false, false);
+	static Mappings read(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, ForkJoinPool pool) throws IOException {
+		return read(firstLine, reader, deduplicator, pool, false, false, false);
 	}
 
-	static ExtendedMappings fullyRead(String firstLine, OffsetReader reader, MappedStringDeduplicator deduplicator) throws IOException {
-		return read(firstLine, reader, deduplicator, true, true, true);
+	static ExtendedMappings fullyRead(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, ForkJoinPool pool) throws IOException {
+		return read(firstLine, reader, deduplicator, pool, true, true, true);
 	}
 
-	private static ExtendedMappings read(String firstLine, OffsetReader reader, MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) throws IOException {
+	private static ExtendedMappings read(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, ForkJoinPool pool, boolean keepParams, boolean keepLocals, boolean keepComments) throws IOException {
 		TinyV2VisitorBridge visitor = new TinyV2VisitorBridge(deduplicator, keepParams, keepLocals, keepComments);
-		TinyV2Visitor.read(firstLine, reader, visitor);
+		TinyV2Visitor.read(firstLine, reader, visitor, pool);
 		return visitor.getMappings();
 	}
 
@@ -87,9 +89,22 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 			return out;
 		}
 
+		private String[] deduplicate(Category category, Columns columns, int from) {
+			String[] out = new String[columns.size() - from];
+
+			for (int i = 0; i < out.length; i++) {
+				out[i] = depuplicator.deduplicate(category, columns.get(from + i));
+			}
+
+			return out;
+		}
+
+		/**
+		 * @param names The class's names in each namespace, which should already be deduplicated
+		 */
 		public ClassBits(String... names) {
 			assert Arrays.stream(names).filter(Objects::nonNull).noneMatch(String::isEmpty);
-			this.names = deduplicate(Category.CLASS_NAME, names);
+			this.names = names;
 
 			currentClassName = this.names[0];
 			assert currentClassName != null && !currentClassName.isEmpty();
@@ -108,7 +123,7 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 		}
 
 		public Function<ToIntFunction<String>, ClassEntry> classFactory() {
-			return namespaceIndex -> namespace -> names[namespaceIndex.applyAsInt(namespace)];
+			return namespaceIndex -> new ArrayEntries.Class(names, namespaceIndex);
 		}
 
 		private <T> BiFunction<UnaryOperator<String>[], ToIntFunction<String>, T> memberFactory(BiFunction<EntryTriple[], ToIntFunction<String>, T> memberEntryFactory, String descriptor, String... names) {
@@ -123,7 +138,7 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 					if (names[i] == null) continue;
 
 					assert !names[i].isEmpty();
-					members[i] = new EntryTriple(this.names[i], names[i], remapper[i].apply(descriptor));
+					members[i] = ArrayEntries.triple(members, i, this.names[i], names[i], remapper[i].apply(descriptor));
 				}
 
 				return memberEntryFactory.apply(members, namespaceIndex);
@@ -132,12 +147,19 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 
 		@Override
 		public FieldVisitor visitField(long offset, String[] names, String descriptor) {
+			return visitField(deduplicate(Category.NAME, names), depuplicator.deduplicate(Category.FIELD_DESCRIPTOR, descriptor));
+		}
+
+		@Override
+		public FieldVisitor visitField(long offset, Columns columns) {
+			return visitField(deduplicate(Category.NAME, columns, 1), depuplicator.deduplicate(Category.FIELD_DESCRIPTOR, columns.get(0)));
+		}
+
+		private FieldVisitor visitField(String[] names, String descriptor) {
 			assert names.length > 0;
-			names = deduplicate(Category.NAME, names);
-			descriptor = depuplicator.deduplicate(Category.FIELD_DESCRIPTOR, descriptor);
 			updateCurrentMember(names[0], descriptor);
 
-			fields.add(memberFactory((fields, namespaceIndex) -> namespace -> fields[namespaceIndex.applyAsInt(namespace)], descriptor, names));
+			fields.add(memberFactory(ArrayEntries.Member::new, descriptor, names));
 
 			setNewCommentType(TinyState.FIELD);
 			return keepComments ? this : null;
@@ -145,12 +167,19 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 
 		@Override
 		public MethodVisitor visitMethod(long offset, String[] names, String descriptor) {
+			return visitMethod(deduplicate(Category.NAME, names), depuplicator.deduplicate(Category.METHOD_DESCRIPTOR, descriptor));
+		}
+
+		@Override
+		public MethodVisitor visitMethod(long offset, Columns columns) {
+			return visitMethod(deduplicate(Category.NAME, columns, 1), depuplicator.deduplicate(Category.METHOD_DESCRIPTOR, columns.get(0)));
+		}
+
+		private MethodVisitor visitMethod(String[] names, String descriptor) {
 			assert names.length > 0;
-			names = deduplicate(Category.NAME, names);
-			descriptor = depuplicator.deduplicate(Category.METHOD_DESCRIPTOR, descriptor);
 			updateCurrentMember(names[0], descriptor);
 
-			methods.add(memberFactory((methods, namespaceIndex) -> namespace -> methods[namespaceIndex.applyAsInt(namespace)], descriptor, names));
+			methods.add(memberFactory(ArrayEntries.Member::new, descriptor, names));
 
 			setNewCommentType(TinyState.METHOD);
 			return keepParams || keepLocals || keepComments ? this : null;
@@ -159,10 +188,18 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 		@Override
 		public ParameterVisitor visitParameter(long offset, String[] names, int localVariableIndex) {
 			assert names.length > 0;
-			
+			return visitParameter(keepParams ? deduplicate(Category.NAME, names) : null, localVariableIndex);
+		}
+
+		@Override
+		public ParameterVisitor visitParameter(long offset, Columns columns) {
+			assert columns.size() > 1;
+			return visitParameter(keepParams ? deduplicate(Category.NAME, columns, 1) : null, columns.getInt(0));
+		}
+
+		private ParameterVisitor visitParameter(String[] names, int localVariableIndex) {
 			if (keepParams) {
 				assert Arrays.stream(names).filter(Objects::nonNull).noneMatch(String::isEmpty);
-				names = deduplicate(Category.NAME, names);
 				currentParameterName = new MethodParameter(currentMemberName, names[0], localVariableIndex);
 
 				EntryTriple method = currentParameterName.getMethod();
@@ -188,17 +225,25 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 					parameters[i] = new MethodParameter(methods[i], names[i], localVariableIndex);
 				}
 
-				return namespace -> parameters[namespaceIndex.applyAsInt(namespace)];
+				return new ArrayEntries.Parameter(parameters, namespaceIndex);
 			});
 		}
 
 		@Override
 		public LocalVisitor visitLocalVariable(long offset, String[] names, int lvIndex, int startOffset, int lvtIndex) {
 			assert names.length > 0;
+			return visitLocalVariable(keepLocals ? deduplicate(Category.NAME, names) : null, lvIndex, startOffset, lvtIndex);
+		}
+
+		@Override
+		public LocalVisitor visitLocalVariable(long offset, Columns columns) {
+			assert columns.size() > 3;
+			return visitLocalVariable(keepLocals ? deduplicate(Category.NAME, columns, 3) : null, columns.getInt(0), columns.getInt(1), columns.getInt(2));
+		}
 
+		private LocalVisitor visitLocalVariable(String[] names, int lvIndex, int startOffset, int lvtIndex) {
 			if (keepLocals) {
 				assert Arrays.stream(names).filter(Objects::nonNull).noneMatch(String::isEmpty);
-				names = deduplicate(Category.NAME, names);
 				currentLocalVariableName = new LocalVariable(currentMemberName, names[0], lvIndex, startOffset, lvtIndex);
 
 				EntryTriple method = currentLocalVariableName.getMethod();
@@ -224,7 +269,7 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 					locals[i] = new LocalVariable(methods[i], names[i], localVariableIndex, indexStartOffset, lvtIndex);
 				}
 
-				return namespace -> locals[namespaceIndex.applyAsInt(namespace)];
+				return new ArrayEntries.Local(locals, namespaceIndex);
 			});
 		}
 
@@ -266,7 +311,7 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 	final Comments comments = new CommentsImpl();
 	private String[] namespaces;
 
-	private TinyV2VisitorBridge(MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) {
+	TinyV2VisitorBridge(MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) {
 		this.depuplicator = deduplicator;
 		this.keepParams = keepParams;
 		this.keepLocals = keepLocals;
@@ -293,42 +338,79 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 	@Override
 	public ClassVisitor visitClass(long offset, String[] names) {
 		assert names.length > 0;
+		String[] deduplicated = new String[names.length];
+
+		for (int i = 0; i < deduplicated.length; i++) {
+			deduplicated[i] = depuplicator.deduplicate(Category.CLASS_NAME, names[i]);
+		}
+
+		return visitClass(deduplicated);
+	}
+
+	@Override
+	public ClassVisitor visitClass(long offset, Columns names) {
+		assert names.size() > 0;
+		String[] deduplicated = new String[names.size()];
+
+		for (int i = 0; i < deduplicated.length; i++) {
+			deduplicated[i] = depuplicator.deduplicate(Category.CLASS_NAME, names.get(i));
+		}
 
+		return visitClass(deduplicated);
+	}
+
+	private ClassVisitor visitClass(String[] names) {
 		ClassBits currentClass = new ClassBits(names);
 		classes.add(currentClass);
 		return currentClass;
 	}
 
-	public ExtendedMappings getMappings() {
+	/**
+	 * Creates the descriptor remappers from the first namespace into each namespace
+	 * using the given class names, which should be in the same order as the namespaces.
+	 */
+	static UnaryOperator<String>[] createRemappers(int namespaces, Iterable<String[]> classNames) {
 		@SuppressWarnings("unchecked") //We'll be careful Java
-		UnaryOperator<String>[] remappers = new UnaryOperator[namespaces.length];
+		UnaryOperator<String>[] remappers = new UnaryOperator[namespaces];
 		remappers[0] = UnaryOperator.identity();
 
 		if (remappers.length > 1) {
-			@SuppressWarnings("unchecked") //Super careful, no accidents
-			Map<String, String>[] classPools = new HashMap[namespaces.length - 1];
-			for (int i = 0; i < classPools.length; i++) classPools[i] = new HashMap<>();
-
-			for (ClassBits clazz : classes) {
-				assert clazz.names.length == namespaces.length;
-
-				for (int i = 1; i < clazz.names.length; i++) {
-					classPools[i - 1].put(clazz.names[0], clazz.names[i]);
-				}
+			//Each namespace's remapper looks up the same classes, so they can all share the one pool
+			List<String[]> classes = new ArrayList<>();
+			classNames.forEach(classes::add);
+
+			FilteredClassMap<String[]> classPool = new FilteredClassMap<>(classes.size());
+			for (String[] names : classes) {
+				assert names.length == namespaces;
+				classPool.put(names[0], names);
 			}
 
-			for (int i = 0; i < classPools.length; i++) {
-				Map<String, String> classPool = classPools[i]; //Unpack here so the anonymous class only needs capture the map
+			for (int i = 1; i < namespaces; i++) {
+				int namespace = i; //Copy to be effectively final for the anonymous class
 
-				remappers[i + 1] = new Remapper() {
+				remappers[i] = new DescriptorRemapper(new Remapper() {
 					@Override
 					public String map(String type) {
-						return classPool.getOrDefault(type, type);
+						String[] names = classPool.get(type);
+						return names != null ? names[namespace] : type;
 					}
-				}::mapDesc;
+				});
 			}
 		}
 
+		return remappers;
+	}
+
+	public ExtendedMappings getMappings() {
+		return getMappings(createRemappers(namespaces.length, () -> classes.stream().map(clazz -> clazz.names).iterator()));
+	}
+
+	/**
+	 * Gets the mappings visited so far, remapping descriptors with the given remappers
+	 * rather than ones created from the classes visited. This allows a section of a
+	 * file to be read whilst still remapping classes outside of it.
+	 */
+	ExtendedMappings getMappings(UnaryOperator<String>[] remappers) {
 		Collection<ClassEntry> classEntries = new ArrayList<>(classes.size());
 		Collection<MethodEntry> methodEntries = new ArrayList<>();
 		Collection<FieldEntry> fieldEntries = new ArrayList<>();
@@ -403,6 +485,7 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 		private final Collection<LocalVariableEntry> localVariableEntries;
 		private final Collection<String> namespaces;
 		private final Comments comments;
+		private final MappingsIndex index = new MappingsIndex(this);
 
 		public MappingsImpl(Collection<ClassEntry> classEntries, Collection<MethodEntry> methodEntries, Collection<FieldEntry> fieldEntries, 
 				Collection<MethodParameterEntry> methodParameterEntries, Collection<LocalVariableEntry> localVariableEntries, Collection<String> namespaces, Comments comments) {
@@ -445,6 +528,21 @@ class TinyV2VisitorBridge implements MappingsVisitor {
 			return namespaces;
 		}
 
+		@Override
+		public ClassEntry getClass(String namespace, String name) {
+			return index.getClass(namespace, name);
+		}
+
+		@Override
+		public FieldEntry getField(String namespace, String owner, String name, String desc) {
+			return index.getField(namespace, owner, name, desc);
+		}
+
+		@Override
+		public MethodEntry getMethod(String namespace, String owner, String name, String desc) {
+			return index.getMethod(namespace, owner, name, desc);
+		}
+
 		@Override
 		public Comments getComments() {
 			return comments;
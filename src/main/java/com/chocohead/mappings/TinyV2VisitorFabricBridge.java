@@ -9,8 +9,6 @@ package com.chocohead.mappings;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -41,18 +39,18 @@ import com.chocohead.mappings.visitor.ParameterVisitor;
 
 public class TinyV2VisitorFabricBridge implements MappingsVisitor {
 	public static Mappings read(InputStream stream, boolean saveMemoryUsage) throws IOException {
-		try (OffsetReader reader = new OffsetReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+		try (ByteOffsetReader reader = new ByteOffsetReader(stream)) {
 			return read(reader.readLine(), reader, saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY, false, false, false);
 		}
 	}
 
 	public static ExtendedMappings fullyRead(InputStream stream, boolean saveMemoryUsage) throws IOException {
-		try (OffsetReader reader = new OffsetReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+		try (ByteOffsetReader reader = new ByteOffsetReader(stream)) {
 			return read(reader.readLine(), reader, saveMemoryUsage ? new MappedStringDeduplicator.MapBased() : MappedStringDeduplicator.EMPTY, true, true, true);
 		}
 	}
 
-	private static ExtendedMappings read(String firstLine, OffsetReader reader, MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) throws IOException {
+	private static ExtendedMappings read(String firstLine, TinyInput reader, MappedStringDeduplicator deduplicator, boolean keepParams, boolean keepLocals, boolean keepComments) throws IOException {
 		TinyV2VisitorFabricBridge visitor = new TinyV2VisitorFabricBridge(deduplicator, keepParams, keepLocals, keepComments);
 		TinyV2Visitor.read(firstLine, reader, visitor);
 		return visitor.getMappings();
@@ -109,7 +107,7 @@ public class TinyV2VisitorFabricBridge implements MappingsVisitor {
 		assert names.length > 0;
 		assert Arrays.stream(names).filter(Objects::nonNull).noneMatch(String::isEmpty);
 		String[] classNames = deduplicate(Category.CLASS_NAME, names);
-		classEntries.add(namespace -> classNames[namespaces.indexOf(namespace)]);
+		classEntries.add(new ArrayEntries.Class(classNames, namespaces::indexOf));
 
 		return new ClassVisitor() {
 			private List<String> classComments;
@@ -124,7 +122,7 @@ public class TinyV2VisitorFabricBridge implements MappingsVisitor {
 				for (int i = 0; i < methods.length; i++) {
 					methods[i] = new EntryTriple(classNames[i], names[i], descriptor);
 				}
-				methodEntries.add(namespace -> methods[namespaces.indexOf(namespace)]);
+				methodEntries.add(new ArrayEntries.Member(methods, namespaces::indexOf));
 
 				return keepParams || keepLocals || keepComments ? new MethodVisitor() {
 					private List<String> methodComments;
@@ -141,7 +139,7 @@ public class TinyV2VisitorFabricBridge implements MappingsVisitor {
 							for (int i = 0; i < params.length; i++) {
 								params[i] = new MethodParameter(methods[i], names[i], localVariableIndex);
 							}
-							methodParameterEntries.add(namespace -> params[namespaces.indexOf(namespace)]);
+							methodParameterEntries.add(new ArrayEntries.Parameter(params, namespaces::indexOf));
 
 							if (keepComments) {
 								return new ParameterVisitor() {
@@ -176,7 +174,7 @@ public class TinyV2VisitorFabricBridge implements MappingsVisitor {
 							for (int i = 0; i < locals.length; i++) {
 								locals[i] = new LocalVariable(methods[i], names[i], localVariableIndex, localVariableStartOffset, localVariableTableIndex);
 							}
-							localVariableEntries.add(namespace -> locals[namespaces.indexOf(namespace)]);
+							localVariableEntries.add(new ArrayEntries.Local(locals, namespaces::indexOf));
 
 							if (keepComments) {
 								return new LocalVisitor() {
@@ -221,7 +219,7 @@ public class TinyV2VisitorFabricBridge implements MappingsVisitor {
 				for (int i = 0; i < fields.length; i++) {
 					fields[i] = new EntryTriple(classNames[i], names[i], descriptor);
 				}
-				fieldEntries.add(namespace -> fields[namespaces.indexOf(namespace)]);
+				fieldEntries.add(new ArrayEntries.Member(fields, namespaces::indexOf));
 
 				return keepComments ? new FieldVisitor() {
 					private List<String> fieldComments;
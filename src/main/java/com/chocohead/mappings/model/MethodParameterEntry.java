@@ -18,4 +18,14 @@ package com.chocohead.mappings.model;
 
 public interface MethodParameterEntry {
 	MethodParameter get(String namespace);
+
+	/**
+	 * Gets the mapping in the namespace with the given id, as returned by {@link com.chocohead.mappings.Mappings#namespaceId(String)}
+	 * for the mappings this entry came from.
+	 *
+	 * @throws UnsupportedOperationException If the entry doesn't support namespace ids
+	 */
+	default MethodParameter get(int namespace) {
+		throw new UnsupportedOperationException(getClass() + " does not support namespace ids");
+	}
 }
\ No newline at end of file
@@ -10,7 +10,27 @@ package com.chocohead.mappings.visitor;
 public interface ClassVisitor {
 	MethodVisitor visitMethod(long offset, String[] names, String descriptor);
 
+	/**
+	 * Visit a method without necessarily turning all the names into Strings first
+	 *
+	 * @param offset The position of the method's line in the input
+	 * @param columns The method's descriptor, followed by its name in each namespace
+	 */
+	default MethodVisitor visitMethod(long offset, Columns columns) {
+		return visitMethod(offset, columns.toArray(1), columns.getString(0));
+	}
+
 	FieldVisitor visitField(long offset, String[] names, String descriptor);
 
+	/**
+	 * Visit a field without necessarily turning all the names into Strings first
+	 *
+	 * @param offset The position of the field's line in the input
+	 * @param columns The field's descriptor, followed by its name in each namespace
+	 */
+	default FieldVisitor visitField(long offset, Columns columns) {
+		return visitField(offset, columns.toArray(1), columns.getString(0));
+	}
+
 	void visitComment(String line);
 }
\ No newline at end of file
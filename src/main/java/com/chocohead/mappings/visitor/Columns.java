@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.chocohead.mappings.visitor;
+
+/**
+ * The tab separated columns of the line currently being visited, which are only
+ * turned into {@link String}s when asked for.
+ *
+ * <p>
+ * Columns are only valid for the duration of the visit call they are passed to,
+ * after which they are reused for the next line. Anything which needs to be kept
+ * past then should be taken via {@link #getString(int)} or {@link #toArray(int)}.
+ *
+ * @author Chocohead
+ */
+public interface Columns {
+	/**
+	 * @return The number of columns in the line
+	 */
+	int size();
+
+	/**
+	 * Gets a view of the given column, which will only be valid until the visit
+	 * call the columns were passed to returns.
+	 *
+	 * @param column The index of the column
+	 *
+	 * @return The contents of the column, or null if the column is empty
+	 *
+	 * @throws IndexOutOfBoundsException If the column is outside of the line
+	 */
+	CharSequence get(int column);
+
+	/**
+	 * Gets the contents of the given column as a {@link String}.
+	 *
+	 * @param column The index of the column
+	 *
+	 * @return The contents of the column, or null if the column is empty
+	 *
+	 * @throws IndexOutOfBoundsException If the column is outside of the line
+	 */
+	String getString(int column);
+
+	/**
+	 * Gets the contents of the given column as a decimal number.
+	 *
+	 * @param column The index of the column
+	 *
+	 * @return The number in the column
+	 *
+	 * @throws IndexOutOfBoundsException If the column is outside of the line
+	 * @throws NumberFormatException If the column is not a valid {@code int}
+	 */
+	int getInt(int column);
+
+	/**
+	 * Gets the contents of every column from the given one onwards as
+	 * {@link String}s.
+	 *
+	 * @param from The index of the first column to include
+	 *
+	 * @return The contents of the columns, with empty columns being null
+	 */
+	String[] toArray(int from);
+}
@@ -18,6 +18,16 @@ public interface MappingsVisitor {
 
 	ClassVisitor visitClass(long offset, String[] names);
 
+	/**
+	 * Visit a class without necessarily turning all the names into Strings first
+	 *
+	 * @param offset The position of the class's line in the input
+	 * @param names The class's name in each namespace
+	 */
+	default ClassVisitor visitClass(long offset, Columns names) {
+		return visitClass(offset, names.toArray(0));
+	}
+
 	/**
 	 * Finish visiting the mapping file
 	 * 
@@ -10,7 +10,27 @@ package com.chocohead.mappings.visitor;
 public interface MethodVisitor {
 	ParameterVisitor visitParameter(long offset, String[] names, int localVariableIndex);
 
+	/**
+	 * Visit a parameter without necessarily turning all the names into Strings first
+	 *
+	 * @param offset The position of the parameter's line in the input
+	 * @param columns The parameter's local variable index, followed by its name in each namespace
+	 */
+	default ParameterVisitor visitParameter(long offset, Columns columns) {
+		return visitParameter(offset, columns.toArray(1), columns.getInt(0));
+	}
+
 	LocalVisitor visitLocalVariable(long offset, String[] names, int localVariableIndex, int localVariableStartOffset, int localVariableTableIndex);
 
+	/**
+	 * Visit a local variable without necessarily turning all the names into Strings first
+	 *
+	 * @param offset The position of the local variable's line in the input
+	 * @param columns The local variable's index, start offset and table index, followed by its name in each namespace
+	 */
+	default LocalVisitor visitLocalVariable(long offset, Columns columns) {
+		return visitLocalVariable(offset, columns.toArray(3), columns.getInt(0), columns.getInt(1), columns.getInt(2));
+	}
+
 	void visitComment(String line);
 }
\ No newline at end of file